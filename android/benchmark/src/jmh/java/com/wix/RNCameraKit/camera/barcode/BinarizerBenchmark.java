@@ -0,0 +1,71 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Binarizing the rotated framing rect of a frame, as every decode attempt does. Compare gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+public class BinarizerBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private LuminanceSource source;
+
+    @Setup
+    public void setUp() throws NotFoundException {
+        int width = SyntheticFrames.parseWidth(resolution);
+        int height = SyntheticFrames.parseHeight(resolution);
+        byte[] frame = SyntheticFrames.create(width, height, BarcodeFormat.QR_CODE);
+        source = new FrameDecoder().getLuminanceSource(frame, width, height, 0, 0, height, width);
+
+        // Only comparable if the reusable binarizer still produces zxing's output
+        ReusableHybridBinarizer reusable = new ReusableHybridBinarizer(source);
+        if (!reusable.getBlackMatrix().equals(new HybridBinarizer(source).getBlackMatrix())) {
+            throw new IllegalStateException("Black matrix differs from HybridBinarizer at " + resolution);
+        }
+        GlobalHistogramBinarizer global = new GlobalHistogramBinarizer(source);
+        for (int y = 0; y < source.getHeight(); y++) {
+            BitArray row = blackRow(reusable, y);
+            BitArray expected = blackRow(global, y);
+            if (row == null ? expected != null : !row.equals(expected)) {
+                throw new IllegalStateException("Black row " + y + " differs from GlobalHistogramBinarizer at " + resolution);
+            }
+        }
+    }
+
+    /**
+     * @return null when the row has too little contrast to binarize
+     */
+    private static BitArray blackRow(Binarizer binarizer, int y) {
+        try {
+            return binarizer.getBlackRow(y, null);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public BitMatrix hybridBinarizer() throws NotFoundException {
+        return new HybridBinarizer(source).getBlackMatrix();
+    }
+
+    @Benchmark
+    public BitMatrix reusableHybridBinarizer() throws NotFoundException {
+        return new ReusableHybridBinarizer(source).getBlackMatrix();
+    }
+}
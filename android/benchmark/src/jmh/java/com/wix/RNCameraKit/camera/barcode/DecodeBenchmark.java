@@ -0,0 +1,144 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * The whole path from a preview frame to a decoded result, for frames with a QR code, an EAN-13 code or no code.
+ */
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    @Param({"QR_CODE", "EAN_13", "NONE"})
+    public String code;
+
+    private int width;
+    private int height;
+    private byte[] frame;
+    private MultiFormatReader multiFormatReader;
+    private FrameDecoder freshDecoder;
+    private FrameDecoder trackingDecoder;
+    private FrameDecoder tiledDecoder;
+    private FrameDecoder linearDecoder;
+
+    @Setup
+    public void setUp() {
+        width = SyntheticFrames.parseWidth(resolution);
+        height = SyntheticFrames.parseHeight(resolution);
+        BarcodeFormat format = "NONE".equals(code) ? null : BarcodeFormat.valueOf(code);
+        frame = SyntheticFrames.create(width, height, format);
+
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.allOf(BarcodeFormat.class));
+        multiFormatReader = new MultiFormatReader();
+        multiFormatReader.setHints(hints);
+
+        freshDecoder = createDecoder();
+        trackingDecoder = createDecoder();
+        tiledDecoder = createDecoder();
+        tiledDecoder.setTiledDecode(true);
+        Result[] results = trackingDecoder.decode(frame, width, height, 0, 0, height, width, false);
+        Result[] tiledResults = tiledDecoder.decode(frame, width, height, 0, 0, height, width, false);
+        if ((results != null) != (format != null) || (tiledResults != null) != (format != null)) {
+            throw new IllegalStateException("Unexpected decode result for " + code + " at " + resolution);
+        }
+
+        // Scanlines only apply to one-dimensional formats, the QR frame is never read by them
+        linearDecoder = createDecoder();
+        linearDecoder.setFormats(FormatReader.ONE_D_FORMATS);
+        linearDecoder.setLinearScan(true);
+        Result[] linearResults = linearDecoder.decode(frame, width, height, 0, 0, height, width, false);
+        if ((linearResults != null) != (format == BarcodeFormat.EAN_13)) {
+            throw new IllegalStateException("Unexpected scanline result for " + code + " at " + resolution);
+        }
+    }
+
+    private static FrameDecoder createDecoder() {
+        FrameDecoder decoder = new FrameDecoder();
+        // Always try the rotated frame right away, so every invocation does the same work
+        decoder.getGovernor().setMode(ScanGovernor.PerformanceMode.MAX_THROUGHPUT);
+        return decoder;
+    }
+
+    /**
+     * Baseline: the former BarcodeScanner.decodeResult, rotating the whole frame and decoding it with every format.
+     */
+    @Benchmark
+    public Result fullFrameDecode() {
+        byte[] rotatedData = new byte[frame.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++)
+                rotatedData[x * height + height - y - 1] = frame[x + y * width];
+        }
+        LuminanceSource source = new RotateLuminanceSource(rotatedData, height, width, 0, 0, height, width, false);
+
+        Result result = decode(source);
+        if (result == null && source.isRotateSupported()) {
+            result = decode(source.rotateCounterClockwise());
+        }
+        return result;
+    }
+
+    private Result decode(LuminanceSource source) {
+        try {
+            return multiFormatReader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source)));
+        } catch (ReaderException ignored) {
+            return null;
+        } finally {
+            multiFormatReader.reset();
+        }
+    }
+
+    /**
+     * Every frame scanned in full, as for the first frame showing a code.
+     */
+    @Benchmark
+    public Result[] frameDecode() {
+        freshDecoder.resetTracking();
+        return freshDecoder.decode(frame, width, height, 0, 0, height, width, false);
+    }
+
+    /**
+     * Every frame scanned in full, split into tiles decoded in parallel.
+     */
+    @Benchmark
+    public Result[] tiledFrameDecode() {
+        tiledDecoder.resetTracking();
+        return tiledDecoder.decode(frame, width, height, 0, 0, height, width, false);
+    }
+
+    /**
+     * Every frame read from a few scanlines, with only the one-dimensional formats enabled.
+     */
+    @Benchmark
+    public Result[] linearFrameDecode() {
+        return linearDecoder.decode(frame, width, height, 0, 0, height, width, false);
+    }
+
+    /**
+     * Frames after a hit, which start from the region the code was last seen in.
+     */
+    @Benchmark
+    public Result[] trackedFrameDecode() {
+        return trackingDecoder.decode(frame, width, height, 0, 0, height, width, false);
+    }
+}
@@ -0,0 +1,55 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reading the luminance matrix of a portrait frame, upright and rotated for the second decode attempt.
+ */
+@State(Scope.Thread)
+public class LuminanceSourceBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private LuminanceSource rotateSource;
+    private LuminanceSource transformSource;
+
+    @Setup
+    public void setUp() {
+        int width = SyntheticFrames.parseWidth(resolution);
+        int height = SyntheticFrames.parseHeight(resolution);
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = SyntheticFrames.create(width, height, BarcodeFormat.QR_CODE);
+        byte[] portrait = decoder.getRotatedCrop(frame, width, height, 0, 0, height, width).clone();
+
+        rotateSource = new RotateLuminanceSource(portrait, height, width, 0, 0, height, width, false);
+        transformSource = new TransformLuminanceSource(portrait, height, width, 0, 0, height, width);
+    }
+
+    @Benchmark
+    public byte[] rotateSourceMatrix() {
+        return rotateSource.getMatrix();
+    }
+
+    @Benchmark
+    public byte[] rotateSourceRotatedMatrix() {
+        return rotateSource.rotateCounterClockwise().getMatrix();
+    }
+
+    @Benchmark
+    public byte[] transformSourceMatrix() {
+        return transformSource.getMatrix();
+    }
+
+    @Benchmark
+    public byte[] transformSourceRotatedMatrix() {
+        return transformSource.rotateCounterClockwise().getMatrix();
+    }
+}
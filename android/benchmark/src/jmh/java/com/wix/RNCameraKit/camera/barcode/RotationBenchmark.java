@@ -0,0 +1,53 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Turning a sensor frame into portrait luminance, the first step of every decoded frame.
+ */
+@State(Scope.Thread)
+public class RotationBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private int width;
+    private int height;
+    private byte[] frame;
+    private FrameDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        width = SyntheticFrames.parseWidth(resolution);
+        height = SyntheticFrames.parseHeight(resolution);
+        frame = SyntheticFrames.create(width, height, BarcodeFormat.QR_CODE);
+        decoder = new FrameDecoder();
+    }
+
+    /**
+     * Baseline: the former BarcodeScanner.getRotatedData, rotating the whole frame into a new array.
+     */
+    @Benchmark
+    public byte[] fullFrameRotation() {
+        byte[] rotatedData = new byte[frame.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++)
+                rotatedData[x * height + height - y - 1] = frame[x + y * width];
+        }
+        return rotatedData;
+    }
+
+    /**
+     * Rotating a framing rect covering the whole preview into the decoder's reused buffer.
+     */
+    @Benchmark
+    public byte[] rotatedCrop() {
+        return decoder.getRotatedCrop(frame, width, height, 0, 0, height, width);
+    }
+}
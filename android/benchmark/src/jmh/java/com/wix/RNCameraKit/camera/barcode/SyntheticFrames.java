@@ -0,0 +1,90 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Arrays;
+
+/**
+ * NV21 preview frames with a barcode rendered by zxing's writers, laid out the way a back camera delivers
+ * them: a landscape sensor frame which is rotated clockwise to be shown in portrait.
+ */
+final class SyntheticFrames {
+
+    static final String QR_CONTENTS = "https://github.com/wix/react-native-camera-kit";
+    static final String EAN_CONTENTS = "5901234123457";
+
+    private static final byte BACKGROUND = (byte) 0xc8;
+    private static final byte INK = (byte) 0x20;
+    private static final byte CHROMA = (byte) 0x80;
+
+    private SyntheticFrames() {
+    }
+
+    /**
+     * @param resolution sensor frame size, e.g. "1280x720"
+     */
+    static int parseWidth(String resolution) {
+        return Integer.parseInt(resolution.substring(0, resolution.indexOf('x')));
+    }
+
+    static int parseHeight(String resolution) {
+        return Integer.parseInt(resolution.substring(resolution.indexOf('x') + 1));
+    }
+
+    /**
+     * @param width sensor frame width
+     * @param height sensor frame height
+     * @param format {@link BarcodeFormat#QR_CODE}, {@link BarcodeFormat#EAN_13} or null for a frame without a code
+     */
+    static byte[] create(int width, int height, BarcodeFormat format) {
+        // Render upright in portrait, as the user sees it
+        int previewWidth = height;
+        int previewHeight = width;
+        byte[] preview = new byte[previewWidth * previewHeight];
+        Arrays.fill(preview, BACKGROUND);
+        if (format != null) {
+            draw(preview, previewWidth, previewHeight, encode(format, previewWidth, previewHeight));
+        }
+
+        byte[] frame = new byte[width * height * 3 / 2];
+        Arrays.fill(frame, width * height, frame.length, CHROMA);
+        for (int y = 0; y < previewHeight; y++) {
+            for (int x = 0; x < previewWidth; x++) {
+                // Portrait pixel (x, y) comes from sensor pixel (y, height - 1 - x)
+                frame[(height - 1 - x) * width + y] = preview[y * previewWidth + x];
+            }
+        }
+        return frame;
+    }
+
+    private static BitMatrix encode(BarcodeFormat format, int previewWidth, int previewHeight) {
+        try {
+            switch (format) {
+                case QR_CODE:
+                    int size = Math.min(previewWidth, previewHeight) * 2 / 5;
+                    return new MultiFormatWriter().encode(QR_CONTENTS, format, size, size);
+                case EAN_13:
+                    return new MultiFormatWriter().encode(EAN_CONTENTS, format, previewWidth * 3 / 5, previewHeight / 6);
+                default:
+                    throw new IllegalArgumentException("No synthetic frames for " + format);
+            }
+        } catch (WriterException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void draw(byte[] preview, int previewWidth, int previewHeight, BitMatrix code) {
+        int left = (previewWidth - code.getWidth()) / 2;
+        int top = (previewHeight - code.getHeight()) / 2;
+        for (int y = 0; y < code.getHeight(); y++) {
+            for (int x = 0; x < code.getWidth(); x++) {
+                if (code.get(x, y)) {
+                    preview[(top + y) * previewWidth + left + x] = INK;
+                }
+            }
+        }
+    }
+}
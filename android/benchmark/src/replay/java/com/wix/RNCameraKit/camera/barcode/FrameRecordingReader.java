@@ -0,0 +1,76 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads back the frames written by {@link FrameRecorder}.
+ */
+class FrameRecordingReader implements Closeable {
+
+    static class RecordedFrame {
+        byte[] data;
+        int width;
+        int height;
+        int rotation;
+        int left;
+        int top;
+        int right;
+        int bottom;
+        long timestampNanos;
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer mapping;
+
+    FrameRecordingReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        mapping = this.file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, this.file.length());
+        if (mapping.remaining() < FrameRecorder.FILE_HEADER_SIZE || mapping.getInt() != FrameRecorder.MAGIC) {
+            close();
+            throw new IOException(file + " is not a frame recording");
+        }
+        int version = mapping.getInt();
+        if (version != FrameRecorder.VERSION) {
+            close();
+            throw new IOException("Unsupported frame recording version " + version);
+        }
+    }
+
+    /**
+     * @return the next frame, or null at the end of the recording or at a record cut short
+     */
+    @Nullable
+    RecordedFrame next() {
+        if (mapping.remaining() < FrameRecorder.RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = mapping.getInt();
+        RecordedFrame frame = new RecordedFrame();
+        frame.width = mapping.getInt();
+        frame.height = mapping.getInt();
+        frame.rotation = mapping.getInt();
+        frame.left = mapping.getInt();
+        frame.top = mapping.getInt();
+        frame.right = mapping.getInt();
+        frame.bottom = mapping.getInt();
+        frame.timestampNanos = mapping.getLong();
+        if (length < 0 || mapping.remaining() < length) {
+            return null;
+        }
+        frame.data = new byte[length];
+        mapping.get(frame.data);
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Feeds a frame recording through {@link FrameDecoder} as fast as possible, printing every decoded code
+ * and the throughput and per stage latencies at the end.
+ * Usage: gradle replay -Precording=frames.ckfr [-Pformats=QR_CODE,EAN_13] [-Pmultiple] [-Ppyramid] [-PminSharpness=20] [-PminChange=4]
+ */
+public class FrameReplay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: FrameReplay <recording> [--formats=QR_CODE,EAN_13] [--multiple] [--pyramid] [--min-sharpness=20] [--min-change=4]");
+            System.exit(1);
+        }
+
+        ScannerStats stats = new ScannerStats();
+        FrameDecoder decoder = new FrameDecoder(stats);
+        decoder.getGovernor().setMode(ScanGovernor.PerformanceMode.MAX_THROUGHPUT);
+        boolean multiple = false;
+        double minSharpness = 0;
+        double minChange = 0;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--formats=")) {
+                decoder.setFormats(parseFormats(arg.substring("--formats=".length())));
+            } else if (arg.equals("--multiple")) {
+                multiple = true;
+            } else if (arg.equals("--pyramid")) {
+                decoder.setPyramidDecode(true);
+            } else if (arg.startsWith("--min-sharpness=")) {
+                minSharpness = Double.parseDouble(arg.substring("--min-sharpness=".length()));
+            } else if (arg.startsWith("--min-change=")) {
+                minChange = Double.parseDouble(arg.substring("--min-change=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        decoder.getGate().setThresholds(minSharpness, minChange);
+
+        long frames = 0;
+        long hits = 0;
+        long elapsedNanos = 0;
+        try (FrameRecordingReader reader = new FrameRecordingReader(new File(args[0]))) {
+            FrameRecordingReader.RecordedFrame frame;
+            while ((frame = reader.next()) != null) {
+                long start = System.nanoTime();
+                FrameGate.Verdict verdict = decoder.getGate().evaluate(frame.data, frame.width, frame.height,
+                        frame.left, frame.top, frame.right, frame.bottom);
+                if (verdict != FrameGate.Verdict.DECODE) {
+                    elapsedNanos += System.nanoTime() - start;
+                    stats.onFrameGated(verdict);
+                    frames++;
+                    continue;
+                }
+                Result[] results = decoder.decode(frame.data, frame.width, frame.height,
+                        frame.left, frame.top, frame.right, frame.bottom, multiple);
+                elapsedNanos += System.nanoTime() - start;
+                stats.onFrameDecoded(results != null);
+
+                if (results != null) {
+                    hits++;
+                    for (Result result : results) {
+                        System.out.println(String.format(Locale.US, "frame %d: %s %s", frames, result.getBarcodeFormat(), result.getText()));
+                    }
+                }
+                frames++;
+            }
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format(Locale.US, "%d frames, %d hits, %.1f frames/s", frames, hits, seconds > 0 ? frames / seconds : 0));
+        if (minSharpness > 0 || minChange > 0) {
+            System.out.println(String.format(Locale.US, "gate skipped %d blurry and %d unchanged frames, %.0f%%",
+                    stats.getFramesBlurry(), stats.getFramesUnchanged(), stats.getGateSkipRatio() * 100));
+        }
+        for (ScannerStats.Stage stage : ScannerStats.Stage.values()) {
+            LatencyHistogram histogram = stats.getHistogram(stage);
+            if (histogram.getCount() == 0) continue;
+            System.out.println(String.format(Locale.US, "%-10s mean %.2f ms, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    stage.getName(), histogram.getMeanMs(), histogram.getPercentileMs(0.5),
+                    histogram.getPercentileMs(0.9), histogram.getPercentileMs(0.99), histogram.getMaxMs()));
+        }
+    }
+
+    private static List<BarcodeFormat> parseFormats(String formats) {
+        List<BarcodeFormat> barcodeFormats = new ArrayList<>();
+        for (String format : formats.split(",")) {
+            barcodeFormats.add(BarcodeFormat.valueOf(format.trim().toUpperCase(Locale.US)));
+        }
+        return barcodeFormats;
+    }
+}
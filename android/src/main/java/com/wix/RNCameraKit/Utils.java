@@ -6,11 +6,13 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
 import androidx.annotation.NonNull;
+import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
+import com.google.zxing.BarcodeFormat;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -19,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 
 import javax.annotation.Nullable;
 
@@ -51,6 +55,23 @@ public class Utils {
         return null;
     }
 
+    /**
+     * Barcode formats named by zxing's {@link BarcodeFormat} constants, case insensitive. Unknown names are skipped.
+     */
+    public static @NonNull List<BarcodeFormat> readableArrayToBarcodeFormats(@Nullable ReadableArray formats) {
+        List<BarcodeFormat> barcodeFormats = new ArrayList<>();
+        if (formats != null) {
+            for (String format : readableArrayToList(formats)) {
+                try {
+                    barcodeFormats.add(BarcodeFormat.valueOf(format.toUpperCase(Locale.US)));
+                } catch (IllegalArgumentException e) {
+                    Log.w("CameraKit", "Unknown barcode format " + format);
+                }
+            }
+        }
+        return barcodeFormats;
+    }
+
     public static @NonNull ArrayList<String> readableArrayToList(ReadableArray items) {
         ArrayList<String> list = new ArrayList<>();
         for(int i = 0; i < items.size(); i++) {
@@ -142,7 +163,10 @@ public class Utils {
         return inSampleSize;
     }
 
-    private static Bitmap loadBitmap(Context context, String imagePath, BitmapFactory.Options options) throws IOException {
+    /**
+     * Decode an image from a file path or a content uri, as the options ask.
+     */
+    public static Bitmap loadBitmap(Context context, String imagePath, BitmapFactory.Options options) throws IOException {
         Bitmap sourceImage = null;
         if (!imagePath.startsWith(CONTENT_PREFIX)) {
             try {
@@ -0,0 +1,55 @@
+package com.wix.RNCameraKit.camera;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+
+/**
+ * Follows battery broadcasts and reports whether the device is hot or running low on battery,
+ * so barcode scanning can slow down.
+ */
+class BatteryMonitor extends BroadcastReceiver {
+
+    interface Listener {
+        void onConstrainedChanged(boolean constrained);
+    }
+
+    private static final int HOT_TEMPERATURE = 420; // tenths of a degree Celsius
+    private static final float LOW_BATTERY = 0.15f;
+
+    private final Listener listener;
+    private boolean constrained;
+
+    BatteryMonitor(Listener listener) {
+        this.listener = listener;
+    }
+
+    void start(Context context) {
+        // ACTION_BATTERY_CHANGED is sticky, the current state is delivered right after registering
+        context.registerReceiver(this, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    }
+
+    void stop(Context context) {
+        try {
+            context.unregisterReceiver(this);
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int temperature = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+        boolean charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+
+        boolean lowBattery = !charging && level >= 0 && scale > 0 && level / (float) scale <= LOW_BATTERY;
+        boolean hot = temperature >= HOT_TEMPERATURE;
+        if (constrained != (lowBattery || hot)) {
+            constrained = lowBattery || hot;
+            listener.onConstrainedChanged(constrained);
+        }
+    }
+}
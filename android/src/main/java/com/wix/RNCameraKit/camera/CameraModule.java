@@ -7,9 +7,12 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
 import com.wix.RNCameraKit.camera.commands.Capture;
 import com.wix.RNCameraKit.camera.permission.CameraPermission;
 
+import javax.annotation.Nullable;
+
 
 public class CameraModule extends ReactContextBaseJavaModule {
 
@@ -68,6 +71,17 @@ public class CameraModule extends ReactContextBaseJavaModule {
         cameraPermission.requestAccess(getCurrentActivity(), promise);
     }
 
+    /**
+     * Open the camera while the screen showing it is still on its way, e.g. during a navigation transition.
+     * @param options cameraProfile and showFrame, as the camera view will be given
+     */
+    @ReactMethod
+    public void prepareCamera(@Nullable ReadableMap options, Promise promise) {
+        String cameraProfile = options != null && options.hasKey("cameraProfile") ? options.getString("cameraProfile") : null;
+        boolean showFrame = options != null && options.hasKey("showFrame") && options.getBoolean("showFrame");
+        CameraViewManager.prepareCamera(getReactApplicationContext(), cameraProfile, showFrame, promise);
+    }
+
     @ReactMethod
     public void hasFrontCamera(Promise promise) {
 
@@ -85,8 +99,7 @@ public class CameraModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void hasFlashForCurrentCamera(Promise promise) {
-        Camera camera = CameraViewManager.getCamera();
-        promise.resolve(camera.getParameters().getSupportedFlashModes() != null);
+        CameraViewManager.hasFlashForCurrentCamera(promise);
     }
 
     @ReactMethod
@@ -96,13 +109,23 @@ public class CameraModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setFlashMode(String mode, Promise promise) {
-        promise.resolve(CameraViewManager.setFlashMode(mode));
+        CameraViewManager.setFlashMode(mode, promise);
     }
 
     @ReactMethod
     public void getFlashMode(Promise promise) {
-        Camera camera = CameraViewManager.getCamera();
-        promise.resolve(camera.getParameters().getFlashMode());
+        CameraViewManager.getFlashMode(promise);
+    }
+
+    @ReactMethod
+    public void getScannerStats(Promise promise) {
+        promise.resolve(ScannerStatsEvent.statsToMap(CameraViewManager.getScannerStats()));
+    }
+
+    @ReactMethod
+    public void resetScannerStats(Promise promise) {
+        CameraViewManager.getScannerStats().reset();
+        promise.resolve(true);
     }
 
     @ReactMethod
@@ -0,0 +1,124 @@
+package com.wix.RNCameraKit.camera;
+
+import android.graphics.ImageFormat;
+import android.hardware.Camera;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Snapshot of the parameters of an open camera. {@link Camera#getParameters()} is a binder call that flattens
+ * and parses every parameter as one large string, readers use the snapshot taken by the last write instead.
+ * Values never change after construction, a new snapshot replaces the old one.
+ */
+@SuppressWarnings("deprecation")
+// We're still using Camera API 1, everything is deprecated
+public final class CameraParameters {
+
+    private final Camera camera;
+    private final int previewWidth;
+    private final int previewHeight;
+    private final int previewFormat;
+    @Nullable private final String flashMode;
+    @Nullable private final List<String> supportedFlashModes;
+    @Nullable private final String focusMode;
+    private final boolean focusAreasSupported;
+    private final boolean meteringAreasSupported;
+    private final List<Camera.Size> supportedPreviewSizes;
+    private final List<Camera.Size> supportedPictureSizes;
+
+    /**
+     * @param previous snapshot the supported values are taken from when it's of the same camera, they never change
+     */
+    CameraParameters(Camera camera, Camera.Parameters parameters, @Nullable CameraParameters previous) {
+        this.camera = camera;
+        Camera.Size previewSize = parameters.getPreviewSize();
+        previewWidth = previewSize.width;
+        previewHeight = previewSize.height;
+        previewFormat = parameters.getPreviewFormat();
+        flashMode = parameters.getFlashMode();
+        focusMode = parameters.getFocusMode();
+        if (previous != null && previous.isFor(camera)) {
+            supportedFlashModes = previous.supportedFlashModes;
+            focusAreasSupported = previous.focusAreasSupported;
+            meteringAreasSupported = previous.meteringAreasSupported;
+            supportedPreviewSizes = previous.supportedPreviewSizes;
+            supportedPictureSizes = previous.supportedPictureSizes;
+        } else {
+            List<String> flashModes = parameters.getSupportedFlashModes();
+            supportedFlashModes = flashModes == null ? null : Collections.unmodifiableList(flashModes);
+            focusAreasSupported = parameters.getMaxNumFocusAreas() > 0;
+            meteringAreasSupported = parameters.getMaxNumMeteringAreas() > 0;
+            supportedPreviewSizes = unmodifiableSizes(parameters.getSupportedPreviewSizes());
+            supportedPictureSizes = unmodifiableSizes(parameters.getSupportedPictureSizes());
+        }
+    }
+
+    private static List<Camera.Size> unmodifiableSizes(@Nullable List<Camera.Size> sizes) {
+        return sizes == null ? Collections.<Camera.Size>emptyList() : Collections.unmodifiableList(sizes);
+    }
+
+    /**
+     * @return whether the snapshot was taken from this camera, frames of a released camera may still be in flight
+     */
+    public boolean isFor(Camera camera) {
+        return this.camera == camera;
+    }
+
+    /**
+     * @return preview width in sensor orientation
+     */
+    public int getPreviewWidth() {
+        return previewWidth;
+    }
+
+    /**
+     * @return preview height in sensor orientation
+     */
+    public int getPreviewHeight() {
+        return previewHeight;
+    }
+
+    /**
+     * @return bytes in one preview frame
+     */
+    public int getPreviewBufferSize() {
+        return previewWidth * previewHeight * ImageFormat.getBitsPerPixel(previewFormat) / 8;
+    }
+
+    @Nullable
+    String getFlashMode() {
+        return flashMode;
+    }
+
+    /**
+     * @return null when the camera has no flash
+     */
+    @Nullable
+    List<String> getSupportedFlashModes() {
+        return supportedFlashModes;
+    }
+
+    @Nullable
+    String getFocusMode() {
+        return focusMode;
+    }
+
+    boolean isFocusAreasSupported() {
+        return focusAreasSupported;
+    }
+
+    boolean isMeteringAreasSupported() {
+        return meteringAreasSupported;
+    }
+
+    List<Camera.Size> getSupportedPreviewSizes() {
+        return supportedPreviewSizes;
+    }
+
+    List<Camera.Size> getSupportedPictureSizes() {
+        return supportedPictureSizes;
+    }
+}
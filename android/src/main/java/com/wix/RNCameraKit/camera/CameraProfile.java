@@ -0,0 +1,27 @@
+package com.wix.RNCameraKit.camera;
+
+import javax.annotation.Nullable;
+
+/**
+ * How the preview stream is configured. PHOTO matches the preview size to the screen. SCAN feeds the scanner the
+ * smallest frames that still resolve codes across the framing rect, at a lower frame rate. Picture size is the same in both.
+ */
+enum CameraProfile {
+    PHOTO("photo"),
+    SCAN("scan");
+
+    private final String name;
+
+    CameraProfile(String name) {
+        this.name = name;
+    }
+
+    static CameraProfile fromString(@Nullable String name) {
+        for (CameraProfile profile : values()) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        return PHOTO;
+    }
+}
@@ -0,0 +1,94 @@
+package com.wix.RNCameraKit.camera;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The thread every {@link android.hardware.Camera} call is made on, and the state of the camera session.
+ * A camera opened on this thread also delivers its callbacks here, so open, parameters, preview, capture, focus and
+ * release never race. The state only changes on the camera thread and is published for other threads to read.
+ */
+class CameraSession {
+
+    enum State {
+        // No camera open
+        CLOSED,
+        // Open and configured, no preview running
+        OPENED,
+        // Preview running on the top camera view's surface
+        PREVIEWING,
+        // Picture being taken, the preview stops once it's delivered
+        CAPTURING
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private HandlerThread thread;
+    private Handler handler;
+
+    /**
+     * Run on the camera thread, after everything posted before. Never blocks the caller.
+     */
+    void post(Runnable runnable) {
+        getHandler().post(runnable);
+    }
+
+    void postDelayed(Runnable runnable, long delayMillis) {
+        getHandler().postDelayed(runnable, delayMillis);
+    }
+
+    void removeCallbacks(Runnable runnable) {
+        getHandler().removeCallbacks(runnable);
+    }
+
+    /**
+     * Run right away when already on the camera thread, posted otherwise.
+     */
+    void run(Runnable runnable) {
+        if (isCameraThread()) {
+            runnable.run();
+        } else {
+            post(runnable);
+        }
+    }
+
+    boolean isCameraThread() {
+        Handler handler = getHandler();
+        return Looper.myLooper() == handler.getLooper();
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    boolean isOpen() {
+        return state.get() != State.CLOSED;
+    }
+
+    /**
+     * Move to the next state. Called on the camera thread only.
+     */
+    void setState(State next) {
+        state.set(next);
+    }
+
+    /**
+     * Move to the next state only from the expected one. Called on the camera thread only.
+     * @return whether the session was in the expected state
+     */
+    boolean transition(State expected, State next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    private synchronized Handler getHandler() {
+        if (handler == null) {
+            thread = new HandlerThread("CameraKitCamera", Process.THREAD_PRIORITY_DISPLAY);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        return handler;
+    }
+}
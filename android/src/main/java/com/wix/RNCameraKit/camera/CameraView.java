@@ -51,7 +51,11 @@ public class CameraView extends FrameLayout implements SurfaceHolder.Callback, P
     private SurfaceView surface;
 
     private boolean showFrame;
+    private boolean scanning;
+    // Framing rect scaled to the preview size it was computed for, a profile switch changes the size
     private Rect frameRect;
+    private int frameRectPreviewWidth;
+    private int frameRectPreviewHeight;
     private BarcodeFrame barcodeFrame;
     @ColorInt private int frameColor = Color.GREEN;
     @ColorInt private int laserColor = Color.RED;
@@ -146,17 +150,26 @@ public class CameraView extends FrameLayout implements SurfaceHolder.Callback, P
     }
 
     public void showFrame() {
-        if (showFrame) {
+        // Called on every preview restart, one frame is enough
+        if (showFrame && barcodeFrame == null) {
             barcodeFrame = new BarcodeFrame(getContext());
             barcodeFrame.setFrameColor(frameColor);
             barcodeFrame.setLaserColor(laserColor);
+            barcodeFrame.setScanning(scanning);
             addView(barcodeFrame);
             requestLayout();
         }
     }
 
-    public Rect getFramingRectInPreview(int previewWidth, int previewHeight) {
-        if (frameRect == null) {
+    /**
+     * @return share of the preview's width the scanner decodes
+     */
+    public float getFramingWidthRatio() {
+        return showFrame ? BarcodeFrame.getFrameWidthRatio() : 1;
+    }
+
+    public synchronized Rect getFramingRectInPreview(int previewWidth, int previewHeight) {
+        if (frameRect == null || previewWidth != frameRectPreviewWidth || previewHeight != frameRectPreviewHeight) {
             if (barcodeFrame != null) {
                 Rect framingRect = new Rect(barcodeFrame.getFrameRect());
                 int frameWidth = barcodeFrame.getWidth();
@@ -175,10 +188,22 @@ public class CameraView extends FrameLayout implements SurfaceHolder.Callback, P
             } else {
                 frameRect = new Rect(0, 0, previewWidth, previewHeight);
             }
+            frameRectPreviewWidth = previewWidth;
+            frameRectPreviewHeight = previewHeight;
         }
         return frameRect;
     }
 
+    /**
+     * The frame's laser only moves while scanning.
+     */
+    public void setScanning(boolean scanning) {
+        this.scanning = scanning;
+        if (barcodeFrame != null) {
+            barcodeFrame.setScanning(scanning);
+        }
+    }
+
     public void setFrameColor(@ColorInt int color) {
         this.frameColor = color;
         if (barcodeFrame != null) {
@@ -1,5 +1,6 @@
 package com.wix.RNCameraKit.camera;
 
+import android.app.Activity;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.PixelFormat;
@@ -7,28 +8,40 @@ import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
 import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import androidx.annotation.ColorInt;
 import androidx.annotation.IntRange;
 import android.view.Display;
 import android.view.OrientationEventListener;
 import android.view.WindowManager;
 
-import com.facebook.react.bridge.Arguments;
-import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.common.MapBuilder;
 import com.facebook.react.uimanager.SimpleViewManager;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.annotations.ReactProp;
-import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.facebook.react.uimanager.UIManagerModule;
+import com.google.zxing.BarcodeFormat;
 import com.google.zxing.Result;
 import com.wix.RNCameraKit.Utils;
+import com.wix.RNCameraKit.camera.barcode.BarcodeFrame;
 import com.wix.RNCameraKit.camera.barcode.BarcodeScanner;
+import com.wix.RNCameraKit.camera.barcode.DecodeWorker;
+import com.wix.RNCameraKit.camera.barcode.FrameRecorder;
+import com.wix.RNCameraKit.camera.barcode.PreviewBufferPool;
+import com.wix.RNCameraKit.camera.barcode.ScanGovernor;
+import com.wix.RNCameraKit.camera.barcode.ScannerStats;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
@@ -38,36 +51,217 @@ import static com.wix.RNCameraKit.camera.Orientation.getSupportedRotation;
 // We're still using Camera API 1, everything is deprecated
 public class CameraViewManager extends SimpleViewManager<CameraView> {
 
-    private static Camera camera = null;
-    private static int currentCamera = 0;
-    private static String flashMode = Camera.Parameters.FLASH_MODE_AUTO;
-    private static Stack<CameraView> cameraViews = new Stack<>();
-    private static ThemedReactContext reactContext;
+    private static final int DEFAULT_SCAN_SUPPRESSION_WINDOW = 2000;
+    private static final String FRAME_GATE_MIN_SHARPNESS_KEY = "minSharpness";
+    private static final String FRAME_GATE_MIN_CHANGE_KEY = "minChange";
+    // Preview pixels the scan profile wants across the framing rect, enough for dense QR codes held at arm's length
+    private static final int MIN_SCAN_FRAME_PIXELS = 480;
+    private static final int SCAN_MIN_FPS = 10;
+    private static final int SCAN_MAX_FPS = 20;
+    // A camera prepared ahead of its view is released if no view shows up in time
+    private static final long PREPARED_CAMERA_TIMEOUT_MS = 15000;
+
+    // Every camera call is made on the session's thread, which also writes the camera state below
+    private static final CameraSession session = new CameraSession();
+    private static volatile Camera camera = null;
+    // Parameters of the open camera: the copy edits go to, and the snapshot readers get after every write
+    private static Camera.Parameters parameters;
+    private static volatile CameraParameters cameraParameters;
+    private static volatile int currentCamera = 0;
+    private static volatile String flashMode = Camera.Parameters.FLASH_MODE_AUTO;
+    private static volatile CameraProfile cameraProfile = CameraProfile.PHOTO;
+    private static volatile int currentRotation = 0;
+    // Framing rect width of the view a prepared camera is expected for, until that view is there to ask
+    private static volatile float preparedFramingWidthRatio = 1;
+    // Pushed and popped on the UI thread, read elsewhere through peekCameraView()
+    private static final Stack<CameraView> cameraViews = new Stack<>();
+    // The first camera view's context, or the module's when the camera is prepared before any view exists
+    private static volatile ReactContext reactContext;
+    // Display orientation was set without an activity, see updateDisplayOrientation. Camera thread only.
+    private static boolean displayOrientationPending;
     private static OrientationEventListener orientationListener;
-    private static int currentRotation = 0;
-    private static AtomicBoolean cameraReleased = new AtomicBoolean(false);
 
-    private static boolean shouldScan = false;
-
-    private static BarcodeScanner scanner;
+    private static volatile boolean shouldScan = false;
+
+    private static volatile BarcodeScanner scanner;
+    // Scanner settings are set by props on the UI thread and read when the scanner is created on the camera thread
+    private static volatile List<BarcodeFormat> barcodeFormats;
+    private static volatile ScanGovernor.PerformanceMode scanPerformanceMode = ScanGovernor.PerformanceMode.BALANCED;
+    private static BatteryMonitor batteryMonitor;
+    private static volatile boolean deviceConstrained;
+    private static volatile long scanSuppressionWindow = DEFAULT_SCAN_SUPPRESSION_WINDOW;
+    private static volatile boolean scanMultipleBarcodes;
+    private static volatile boolean scanPyramid;
+    private static volatile boolean scanTiled;
+    private static volatile boolean scanLinear;
+    private static volatile double frameGateMinSharpness;
+    private static volatile double frameGateMinChange;
+    private static DecodeWorker decodeWorker;
+    private static volatile FrameRecorder frameRecorder;
+    private static final ScannerStats scannerStats = new ScannerStats();
+    private static int scannerStatsInterval;
+    private static final Handler scannerStatsHandler = new Handler(Looper.getMainLooper());
+    private static final Runnable dispatchScannerStats = new Runnable() {
+        @Override
+        public void run() {
+            CameraView cameraView = peekCameraView();
+            if (cameraView == null) return;
+            reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher()
+                    .dispatchEvent(new ScannerStatsEvent(cameraView.getId(), scannerStats));
+            scheduleScannerStats();
+        }
+    };
+    private static final ScanFocus scanFocus = new ScanFocus();
+    private static final PreviewBufferPool previewBufferPool = new PreviewBufferPool();
     private static Camera.PreviewCallback previewCallback = new Camera.PreviewCallback() {
         @Override
         public void onPreviewFrame(final byte[] data, final Camera camera) {
-            Utils.runOnWorkerThread(new Runnable() {
+            getDecodeWorker().post(data, camera);
+        }
+    };
+
+    private static synchronized DecodeWorker getDecodeWorker() {
+        if (decodeWorker == null) {
+            decodeWorker = new DecodeWorker("CameraKitDecode", scannerStats, new DecodeWorker.FrameConsumer() {
                 @Override
-                public void run() {
-                    if (scanner != null) {
-                        scanner.onPreviewFrame(data, camera);
+                public void onFrame(byte[] data, Camera camera) {
+                    BarcodeScanner scanner = CameraViewManager.scanner;
+                    try {
+                        if (scanner != null) {
+                            scanner.onPreviewFrame(data, camera);
+                        }
+                    } finally {
+                        recyclePreviewBuffer(data, camera);
                     }
                 }
+
+                @Override
+                public void onFrameDropped(byte[] data, Camera camera) {
+                    recyclePreviewBuffer(data, camera);
+                }
             });
         }
+        return decodeWorker;
+    }
+
+    private static void recyclePreviewBuffer(final byte[] data, final Camera camera) {
+        session.run(new Runnable() {
+            @Override
+            public void run() {
+                if (!session.isOpen() || camera != CameraViewManager.camera) return;
+                try {
+                    previewBufferPool.recycle(camera, data);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private static final Runnable releaseUnusedCamera = new Runnable() {
+        @Override
+        public void run() {
+            if (peekCameraView() == null) {
+                releaseCamera();
+            }
+        }
     };
 
+    /**
+     * Called on the camera thread.
+     */
+    private static void startScanning() {
+        try {
+            previewBufferPool.attach(camera, cameraParameters.getPreviewBufferSize(), previewCallback);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static synchronized void quitDecodeWorker() {
+        if (decodeWorker != null) {
+            decodeWorker.quit();
+            decodeWorker = null;
+        }
+    }
+
+    private static void scheduleScannerStats() {
+        scannerStatsHandler.removeCallbacks(dispatchScannerStats);
+        if (scannerStatsInterval > 0 && !cameraViews.isEmpty()) {
+            scannerStatsHandler.postDelayed(dispatchScannerStats, scannerStatsInterval);
+        }
+    }
+
+    /**
+     * @return the top camera view, or null when there is none. Safe on any thread.
+     */
+    @Nullable
+    private static CameraView peekCameraView() {
+        synchronized (cameraViews) {
+            return cameraViews.isEmpty() ? null : cameraViews.peek();
+        }
+    }
+
+    /**
+     * The open camera, only to be used on the camera thread.
+     */
     public static Camera getCamera() {
         return camera;
     }
 
+    /**
+     * Run on the camera thread, after every camera operation queued before.
+     */
+    static void runOnCameraThread(Runnable runnable) {
+        session.post(runnable);
+    }
+
+    /**
+     * @return parameters of the open camera as of the last write, or null when no camera is open. Safe on any thread.
+     */
+    @Nullable
+    public static CameraParameters getCameraParameters() {
+        return cameraParameters;
+    }
+
+    /**
+     * Write the edited parameters to the camera in one call and publish them. Called on the camera thread.
+     */
+    private static void applyParameters() {
+        try {
+            camera.setParameters(parameters);
+        } catch (RuntimeException e) {
+            // Rejected as a whole, go back to what the camera has
+            parameters = camera.getParameters();
+            throw e;
+        } finally {
+            cameraParameters = new CameraParameters(camera, parameters, cameraParameters);
+        }
+    }
+
+    /**
+     * Focus and metering areas, where the camera supports them, in a single write. Called on the camera thread.
+     * @param areas null for the camera's default areas
+     */
+    static void setFocusAreas(@Nullable List<Camera.Area> areas) {
+        CameraParameters cameraParameters = CameraViewManager.cameraParameters;
+        if (camera == null || cameraParameters == null || !session.isOpen()) return;
+        boolean focusAreas = cameraParameters.isFocusAreasSupported();
+        boolean meteringAreas = cameraParameters.isMeteringAreasSupported();
+        if (!focusAreas && !meteringAreas) return;
+        if (focusAreas) {
+            parameters.setFocusAreas(areas);
+        }
+        if (meteringAreas) {
+            parameters.setMeteringAreas(areas);
+        }
+        applyParameters();
+    }
+
+    static ScannerStats getScannerStats() {
+        return scannerStats;
+    }
+
     @Override
     public String getName() {
         return "CameraView";
@@ -80,122 +274,304 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
     }
 
     static void setCameraView(CameraView cameraView) {
-        if (!cameraViews.isEmpty() && cameraViews.peek() == cameraView) return;
-        CameraViewManager.cameraViews.push(cameraView);
+        synchronized (cameraViews) {
+            if (!cameraViews.isEmpty() && cameraViews.peek() == cameraView) return;
+            cameraViews.push(cameraView);
+        }
         connectHolder();
         createOrientationListener();
+        createBatteryMonitor();
+        scheduleScannerStats();
+    }
+
+    private static void createBatteryMonitor() {
+        if (batteryMonitor != null) return;
+        batteryMonitor = new BatteryMonitor(new BatteryMonitor.Listener() {
+            @Override
+            public void onConstrainedChanged(boolean constrained) {
+                deviceConstrained = constrained;
+                if (scanner != null) {
+                    scanner.setDeviceConstrained(constrained);
+                }
+            }
+        });
+        batteryMonitor.start(reactContext.getApplicationContext());
+    }
+
+    private static void clearBatteryMonitor() {
+        if (batteryMonitor != null) {
+            batteryMonitor.stop(reactContext.getApplicationContext());
+            batteryMonitor = null;
+        }
     }
 
     private static void createOrientationListener() {
         if (orientationListener != null) return;
         orientationListener = new OrientationEventListener(reactContext, SensorManager.SENSOR_DELAY_NORMAL) {
             @Override
-            public void onOrientationChanged(@IntRange(from = -1, to = 359) int angle) {
+            public void onOrientationChanged(@IntRange(from = -1, to = 359) final int angle) {
                 if (angle == OrientationEventListener.ORIENTATION_UNKNOWN) return;
-                setCameraRotation(359 - angle, false);
+                session.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        setCameraRotation(359 - angle, false);
+                    }
+                });
             }
         };
         orientationListener.enable();
     }
 
-    static boolean setFlashMode(String mode) {
-        if (camera == null) {
-            return false;
-        }
-        Camera.Parameters parameters = camera.getParameters();
-        List supportedModes = parameters.getSupportedFlashModes();
-        if (supportedModes != null && supportedModes.contains(mode)) {
-            flashMode = mode;
-            parameters.setFlashMode(flashMode);
-            camera.setParameters(parameters);
-            camera.startPreview();
-            return true;
-        } else {
-            return false;
-        }
+    static void setFlashMode(final String mode, final Promise promise) {
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                if (camera == null || !session.isOpen()) {
+                    promise.resolve(false);
+                    return;
+                }
+                try {
+                    List<String> supportedModes = cameraParameters.getSupportedFlashModes();
+                    if (supportedModes != null && supportedModes.contains(mode)) {
+                        flashMode = mode;
+                        parameters.setFlashMode(flashMode);
+                        applyParameters();
+                        if (session.getState() == CameraSession.State.PREVIEWING) {
+                            camera.startPreview();
+                        }
+                        promise.resolve(true);
+                    } else {
+                        promise.resolve(false);
+                    }
+                } catch (RuntimeException e) {
+                    promise.reject("CameraKit", e);
+                }
+            }
+        });
+    }
+
+    static void getFlashMode(Promise promise) {
+        CameraParameters cameraParameters = CameraViewManager.cameraParameters;
+        promise.resolve(cameraParameters != null ? cameraParameters.getFlashMode() : flashMode);
+    }
+
+    static void hasFlashForCurrentCamera(Promise promise) {
+        CameraParameters cameraParameters = CameraViewManager.cameraParameters;
+        promise.resolve(cameraParameters != null && cameraParameters.getSupportedFlashModes() != null);
     }
 
     static boolean changeCamera() {
-        if (Camera.getNumberOfCameras() == 1) {
+        final int numberOfCameras = Camera.getNumberOfCameras();
+        if (numberOfCameras == 1) {
             return false;
         }
-        currentCamera++;
-        currentCamera = currentCamera % Camera.getNumberOfCameras();
-        initCamera();
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                currentCamera = (currentCamera + 1) % numberOfCameras;
+                initCamera();
+            }
+        });
         connectHolder();
 
         return true;
     }
 
-    private static void initCamera() {
+    /**
+     * Open and configure the camera before its view exists, so the view only has to start the preview on its surface.
+     * Released again unless a view attaches within {@link #PREPARED_CAMERA_TIMEOUT_MS}. A camera prepared with other
+     * settings is reopened, a camera already showing in a view is left to the view's props.
+     * @param profile the view's cameraProfile prop
+     * @param showFrame the view's showFrame prop, the scan profile sizes the preview for the framing rect
+     * @param context the module's context, events and display metrics need one before any view is created
+     * @param promise resolves false when a camera view is mounted and its camera isn't open with this profile,
+     *                rejects when the camera can't be opened or configured
+     */
+    static void prepareCamera(ReactContext context, @Nullable String profile, boolean showFrame, final Promise promise) {
+        if (reactContext == null) {
+            reactContext = context;
+        }
+        final CameraProfile preparedProfile = CameraProfile.fromString(profile);
+        final float framingWidthRatio = showFrame ? BarcodeFrame.getFrameWidthRatio() : 1;
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                boolean open = camera != null && session.isOpen();
+                if (peekCameraView() != null) {
+                    promise.resolve(open && cameraProfile == preparedProfile);
+                    return;
+                }
+                if (open && cameraProfile == preparedProfile && preparedFramingWidthRatio == framingWidthRatio) {
+                    promise.resolve(true);
+                    return;
+                }
+                cameraProfile = preparedProfile;
+                preparedFramingWidthRatio = framingWidthRatio;
+                if (!initCamera()) {
+                    // A view would reuse the camera as it is, unsized
+                    releaseCamera();
+                    promise.reject("CameraKit", "Can't open and configure camera " + currentCamera);
+                    return;
+                }
+                session.removeCallbacks(releaseUnusedCamera);
+                session.postDelayed(releaseUnusedCamera, PREPARED_CAMERA_TIMEOUT_MS);
+                promise.resolve(true);
+            }
+        });
+    }
+
+    /**
+     * Take a picture if the preview is running, the preview stops once the picture is delivered to the callback.
+     */
+    public static void takePicture(final Camera.PictureCallback callback, final Promise promise) {
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                if (camera == null || !session.transition(CameraSession.State.PREVIEWING, CameraSession.State.CAPTURING)) {
+                    promise.reject("CameraKit", "Camera is not previewing");
+                    return;
+                }
+                try {
+                    camera.takePicture(null, null, new Camera.PictureCallback() {
+                        @Override
+                        public void onPictureTaken(byte[] data, Camera camera) {
+                            session.transition(CameraSession.State.CAPTURING, CameraSession.State.OPENED);
+                            callback.onPictureTaken(data, camera);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    session.transition(CameraSession.State.CAPTURING, CameraSession.State.PREVIEWING);
+                    promise.reject("CameraKit", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Called on the camera thread.
+     * @return whether the camera was opened and took its size and rotation
+     */
+    private static boolean initCamera() {
         if (camera != null) {
             releaseCamera();
         }
+        boolean configured = false;
         try {
             camera = Camera.open(currentCamera);
-            updateCameraSize();
-            cameraReleased.set(false);
-            setCameraRotation(currentRotation, true);
+            session.setState(CameraSession.State.OPENED);
+            // The only read of the camera's parameters, size and rotation go out in one write
+            parameters = camera.getParameters();
+            cameraParameters = new CameraParameters(camera, parameters, null);
+            configured = updateCameraSize();
+            updateRotation(currentRotation, true);
+            try {
+                applyParameters();
+            } catch (RuntimeException e) {
+                configured = false;
+                // Sizes or modes the camera rejected, keep its defaults but still rotate
+                Log.w("CameraKit", "Can't configure camera: " + e);
+                updateRotation(currentRotation, true);
+                applyParameters();
+            }
         } catch (RuntimeException e) {
+            configured = false;
             e.printStackTrace();
         }
         setBarcodeScanner();
+        return configured;
     }
 
+    /**
+     * Called on the camera thread.
+     */
     private static void releaseCamera() {
-        camera.setOneShotPreviewCallback(null);
-        cameraReleased.set(true);
+        Camera camera = CameraViewManager.camera;
+        if (camera == null) return;
+        session.setState(CameraSession.State.CLOSED);
+        CameraViewManager.camera = null;
+        parameters = null;
+        cameraParameters = null;
+        try {
+            previewBufferPool.detach(camera);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
         camera.release();
     }
 
+    /**
+     * Open the camera if needed and start its preview on the top camera view. Never blocks the caller.
+     */
     private static void connectHolder() {
-        if (cameraViews.isEmpty() || cameraViews.peek().getHolder() == null) return;
+        final CameraView cameraView = peekCameraView();
+        if (cameraView == null || cameraView.getHolder() == null) return;
 
-        new Thread(new Runnable() {
+        session.post(new Runnable() {
             @Override
             public void run() {
                 if (camera == null) {
                     initCamera();
                 }
+                // Another view took over, or the camera failed to open
+                if (camera == null || peekCameraView() != cameraView) {
+                    return;
+                }
+                session.removeCallbacks(releaseUnusedCamera);
 
-                if (cameraViews.isEmpty()) {
+                try {
+                    camera.stopPreview();
+                    session.setState(CameraSession.State.OPENED);
+                    if (displayOrientationPending) {
+                        updateDisplayOrientation();
+                    }
+                    camera.setPreviewDisplay(cameraView.getHolder());
+                    camera.startPreview();
+                    session.setState(CameraSession.State.PREVIEWING);
+                    if (shouldScan) {
+                        startScanning();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
                     return;
                 }
 
-                cameraViews.peek().post(new Runnable() {
+                cameraView.post(new Runnable() {
                     @Override
                     public void run() {
-                        try {
-                            camera.stopPreview();
-                            camera.setPreviewDisplay(cameraViews.peek().getHolder());
-                            camera.startPreview();
-                            if (shouldScan) {
-                                camera.setOneShotPreviewCallback(previewCallback);
-                            }
-                            cameraViews.peek().setSurfaceBgColor(Color.TRANSPARENT);
-                            cameraViews.peek().showFrame();
-                        } catch (IOException | RuntimeException e) {
-                            e.printStackTrace();
-                        }
+                        cameraView.setSurfaceBgColor(Color.TRANSPARENT);
+                        cameraView.showFrame();
                     }
                 });
             }
-        }).start();
+        });
     }
 
     static void removeCameraView() {
-        if (!cameraViews.isEmpty()) {
-            cameraViews.pop();
+        boolean empty;
+        synchronized (cameraViews) {
+            if (!cameraViews.isEmpty()) {
+                cameraViews.pop();
+            }
+            empty = cameraViews.isEmpty();
         }
-        if (!cameraViews.isEmpty()) {
+        if (!empty) {
             connectHolder();
-        } else if (camera != null) {
-            releaseCamera();
-            camera = null;
-        }
-        if (cameraViews.isEmpty()) {
-            clearOrientationListener();
+            return;
         }
+
+        // The surface is already gone, releasing asynchronously only costs the camera a few failed frames
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                releaseCamera();
+                // No frames arrive after the release, none would recreate the worker
+                quitDecodeWorker();
+            }
+        });
+        clearOrientationListener();
+        clearBatteryMonitor();
+        scannerStatsHandler.removeCallbacks(dispatchScannerStats);
+        closeFrameRecorder();
     }
 
     private static void clearOrientationListener() {
@@ -205,18 +581,39 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
         }
     }
 
+    /**
+     * Called on the camera thread.
+     */
     private static void setCameraRotation(int rotation, boolean force) {
-        if (camera == null) return;
+        if (camera == null || !session.isOpen()) return;
+        if (updateRotation(rotation, force)) {
+            applyParameters();
+        }
+    }
+
+    /**
+     * Edit the rotation into the parameters, without writing them. Called on the camera thread.
+     * @return whether the parameters changed
+     */
+    private static boolean updateRotation(int rotation, boolean force) {
         int supportedRotation = getSupportedRotation(rotation);
-        if (supportedRotation == currentRotation && !force) return;
+        if (supportedRotation == currentRotation && !force) return false;
         currentRotation = supportedRotation;
 
-        if (cameraReleased.get()) return;
-        Camera.Parameters parameters = camera.getParameters();
         parameters.setRotation(supportedRotation);
         parameters.setPictureFormat(PixelFormat.JPEG);
-        camera.setDisplayOrientation(Orientation.getDeviceOrientation(reactContext.getCurrentActivity()));
-        camera.setParameters(parameters);
+        updateDisplayOrientation();
+        return true;
+    }
+
+    /**
+     * A camera prepared before its view has no activity to take the display rotation from yet. It's shown as portrait
+     * until then, and corrected once a view connects. Called on the camera thread.
+     */
+    private static void updateDisplayOrientation() {
+        Activity activity = reactContext.getCurrentActivity();
+        displayOrientationPending = activity == null;
+        camera.setDisplayOrientation(Orientation.getDeviceOrientation(activity));
     }
 
     public static Camera.CameraInfo getCameraInfo() {
@@ -251,27 +648,79 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
         return optimalSize;
     }
 
-    private static void updateCameraSize() {
-        try {
-            Camera camera = CameraViewManager.getCamera();
+    /**
+     * Smallest preview size matching the screen's aspect ratio that still has enough pixels across the framing rect.
+     */
+    private static Camera.Size getScanPreviewSize(List<Camera.Size> sizes, int w, int h) {
+        final double ASPECT_TOLERANCE = 0.15;
+        double targetRatio = (double) h / w;
+        CameraView cameraView = peekCameraView();
+        float framingWidthRatio = cameraView == null ? preparedFramingWidthRatio : cameraView.getFramingWidthRatio();
+        int minHeight = (int) Math.ceil(MIN_SCAN_FRAME_PIXELS / framingWidthRatio);
+        Camera.Size scanSize = null;
+        for (Camera.Size size : sizes) {
+            double ratio = (double) size.width / size.height;
+            if (Math.abs(ratio - targetRatio) > ASPECT_TOLERANCE || size.height < minHeight) continue;
+            if (scanSize == null || size.width * size.height < scanSize.width * scanSize.height) {
+                scanSize = size;
+            }
+        }
+        return scanSize != null ? scanSize : getOptimalPreviewSize(sizes, w, h);
+    }
 
-            WindowManager wm = (WindowManager) reactContext.getSystemService(Context.WINDOW_SERVICE);
+    /**
+     * Fastest supported range within the scan frame rates, preferring a higher minimum for shorter exposures.
+     * The decoder doesn't keep up with more frames, fewer of them save memory bandwidth.
+     */
+    private static void setScanPreviewFpsRange(Camera.Parameters parameters) {
+        List<int[]> ranges = parameters.getSupportedPreviewFpsRange();
+        if (ranges == null) return;
+        int[] scanRange = null;
+        for (int[] range : ranges) {
+            int min = range[Camera.Parameters.PREVIEW_FPS_MIN_INDEX];
+            int max = range[Camera.Parameters.PREVIEW_FPS_MAX_INDEX];
+            if (min < SCAN_MIN_FPS * 1000 || max > SCAN_MAX_FPS * 1000) continue;
+            if (scanRange == null || max > scanRange[Camera.Parameters.PREVIEW_FPS_MAX_INDEX]
+                    || (max == scanRange[Camera.Parameters.PREVIEW_FPS_MAX_INDEX] && min > scanRange[Camera.Parameters.PREVIEW_FPS_MIN_INDEX])) {
+                scanRange = range;
+            }
+        }
+        if (scanRange != null) {
+            parameters.setPreviewFpsRange(scanRange[Camera.Parameters.PREVIEW_FPS_MIN_INDEX], scanRange[Camera.Parameters.PREVIEW_FPS_MAX_INDEX]);
+        }
+    }
+
+    /**
+     * Edit preview and picture sizes into the parameters, without writing them. Called on the camera thread.
+     */
+    /**
+     * @return whether the sizes were set, the camera keeps its defaults otherwise
+     */
+    private static boolean updateCameraSize() {
+        try {
+            WindowManager wm = (WindowManager) reactContext.getApplicationContext().getSystemService(Context.WINDOW_SERVICE);
             Display display = wm.getDefaultDisplay();
             Point size = new Point();
             display.getSize(size);
             size.y = Utils.convertDeviceHeightToSupportedAspectRatio(size.x, size.y);
-            if (camera == null) return;
-            List<Camera.Size> supportedPreviewSizes = camera.getParameters().getSupportedPreviewSizes();
-            List<Camera.Size> supportedPictureSizes = camera.getParameters().getSupportedPictureSizes();
-            Camera.Size optimalSize = getOptimalPreviewSize(supportedPreviewSizes, size.x, size.y);
+            List<Camera.Size> supportedPreviewSizes = cameraParameters.getSupportedPreviewSizes();
+            List<Camera.Size> supportedPictureSizes = cameraParameters.getSupportedPictureSizes();
+            boolean scanProfile = cameraProfile == CameraProfile.SCAN;
+            Camera.Size optimalSize = scanProfile
+                    ? getScanPreviewSize(supportedPreviewSizes, size.x, size.y)
+                    : getOptimalPreviewSize(supportedPreviewSizes, size.x, size.y);
             Camera.Size optimalPictureSize = getOptimalPreviewSize(supportedPictureSizes, size.x, size.y);
-            Camera.Parameters parameters = camera.getParameters();
             parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
             parameters.setPreviewSize(optimalSize.width, optimalSize.height);
             parameters.setPictureSize(optimalPictureSize.width, optimalPictureSize.height);
             parameters.setFlashMode(flashMode);
-            camera.setParameters(parameters);
-        } catch (RuntimeException ignored) {
+            if (scanProfile) {
+                setScanPreviewFpsRange(parameters);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            Log.w("CameraKit", "Can't size camera: " + e);
+            return false;
         }
     }
 
@@ -284,15 +733,36 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
     }
 
     public static void setBarcodeScanner() {
-        scanner = new BarcodeScanner(previewCallback, new BarcodeScanner.ResultHandler() {
+        BarcodeScanner scanner = new BarcodeScanner(new BarcodeScanner.ResultHandler() {
             @Override
-            public void handleResult(Result result) {
-                WritableMap event = Arguments.createMap();
-                event.putString("codeStringValue", result.getText());
-                if (!cameraViews.empty())
-                    reactContext.getJSModule(RCTEventEmitter.class).receiveEvent(cameraViews.peek().getId(), "onReadCode", event);
+            public void handleResult(Result result, short coalescingKey) {
+                CameraView cameraView = peekCameraView();
+                if (cameraView != null)
+                    reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher()
+                            .dispatchEvent(new ReadCodeEvent(cameraView.getId(), result, coalescingKey));
             }
-        });
+
+            @Override
+            public void handleResults(Result[] results, int previewWidth, int previewHeight) {
+                CameraView cameraView = peekCameraView();
+                if (cameraView != null)
+                    reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher()
+                            .dispatchEvent(new ReadCodesEvent(cameraView.getId(), results, previewWidth, previewHeight));
+            }
+        }, scannerStats);
+        scanner.setFormats(barcodeFormats);
+        scanner.setPerformanceMode(scanPerformanceMode);
+        scanner.setSuppressionWindow(scanSuppressionWindow);
+        scanner.setMultipleBarcodes(scanMultipleBarcodes);
+        scanner.setPyramidDecode(scanPyramid);
+        scanner.setTiledDecode(scanTiled);
+        scanner.setLinearScan(scanLinear);
+        scanner.setFrameGate(frameGateMinSharpness, frameGateMinChange);
+        scanner.setDeviceConstrained(deviceConstrained);
+        scanner.setRecorder(frameRecorder);
+        scanner.setFocusHandler(scanFocus);
+        // Published once configured, preview frames never see a scanner with default settings
+        CameraViewManager.scanner = scanner;
     }
 
     @Nullable
@@ -301,17 +771,161 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
         return MapBuilder.<String, Object>builder()
                 .put("onReadCode",
                         MapBuilder.of("registrationName", "onReadCode"))
+                .put("onReadCodes",
+                        MapBuilder.of("registrationName", "onReadCodes"))
+                .put("onScannerStats",
+                        MapBuilder.of("registrationName", "onScannerStats"))
                 .build();
     }
 
+    /**
+     * Reopens a running camera, so switching back to photo also brings back its default frame rate.
+     */
+    @ReactProp(name = "cameraProfile")
+    public void setCameraProfile(CameraView view, @Nullable String profile) {
+        CameraProfile cameraProfile = CameraProfile.fromString(profile);
+        if (CameraViewManager.cameraProfile == cameraProfile) return;
+        CameraViewManager.cameraProfile = cameraProfile;
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                if (camera != null && session.isOpen()) {
+                    initCamera();
+                }
+            }
+        });
+        connectHolder();
+    }
+
     @ReactProp(name = "scanBarcode")
     public void setShouldScan(CameraView view, boolean scanBarcode) {
+        view.setScanning(scanBarcode);
+        if (shouldScan == scanBarcode) return;
         shouldScan = scanBarcode;
-        if (shouldScan && camera != null) {
-            camera.setOneShotPreviewCallback(previewCallback);
+        session.post(new Runnable() {
+            @Override
+            public void run() {
+                if (camera == null || !session.isOpen()) return;
+                if (shouldScan) {
+                    if (scanner != null) {
+                        scanner.resetFocus();
+                    }
+                    startScanning();
+                } else {
+                    previewBufferPool.detach(camera);
+                    scanFocus.clear();
+                }
+            }
+        });
+    }
+
+    @ReactProp(name = "barcodeFormats")
+    public void setBarcodeFormats(CameraView view, @Nullable ReadableArray formats) {
+        List<BarcodeFormat> barcodeFormats = Utils.readableArrayToBarcodeFormats(formats);
+        CameraViewManager.barcodeFormats = barcodeFormats;
+        if (scanner != null) {
+            scanner.setFormats(barcodeFormats);
+        }
+    }
+
+    @ReactProp(name = "scanSuppressionWindow", defaultInt = DEFAULT_SCAN_SUPPRESSION_WINDOW)
+    public void setScanSuppressionWindow(CameraView view, int suppressionWindowMs) {
+        scanSuppressionWindow = suppressionWindowMs;
+        if (scanner != null) {
+            scanner.setSuppressionWindow(suppressionWindowMs);
+        }
+    }
+
+    @ReactProp(name = "scanMultipleBarcodes", defaultBoolean = false)
+    public void setScanMultipleBarcodes(CameraView view, boolean multipleBarcodes) {
+        scanMultipleBarcodes = multipleBarcodes;
+        if (scanner != null) {
+            scanner.setMultipleBarcodes(multipleBarcodes);
+        }
+    }
+
+    @ReactProp(name = "scanPyramid", defaultBoolean = false)
+    public void setScanPyramid(CameraView view, boolean pyramid) {
+        scanPyramid = pyramid;
+        if (scanner != null) {
+            scanner.setPyramidDecode(pyramid);
+        }
+    }
+
+    @ReactProp(name = "scanTiled", defaultBoolean = false)
+    public void setScanTiled(CameraView view, boolean tiled) {
+        scanTiled = tiled;
+        if (scanner != null) {
+            scanner.setTiledDecode(tiled);
+        }
+    }
+
+    @ReactProp(name = "scanLinear", defaultBoolean = false)
+    public void setScanLinear(CameraView view, boolean linear) {
+        scanLinear = linear;
+        if (scanner != null) {
+            scanner.setLinearScan(linear);
+        }
+    }
+
+    @ReactProp(name = "scanFrameGate")
+    public void setScanFrameGate(CameraView view, @Nullable ReadableMap frameGate) {
+        frameGateMinSharpness = getDoubleSafe(frameGate, FRAME_GATE_MIN_SHARPNESS_KEY);
+        frameGateMinChange = getDoubleSafe(frameGate, FRAME_GATE_MIN_CHANGE_KEY);
+        if (scanner != null) {
+            scanner.setFrameGate(frameGateMinSharpness, frameGateMinChange);
+        }
+    }
+
+    private static double getDoubleSafe(@Nullable ReadableMap map, String key) {
+        return map != null && map.hasKey(key) && !map.isNull(key) ? map.getDouble(key) : 0;
+    }
+
+    @ReactProp(name = "scanPerformanceMode")
+    public void setScanPerformanceMode(CameraView view, @Nullable String mode) {
+        scanPerformanceMode = ScanGovernor.PerformanceMode.fromString(mode);
+        if (scanner != null) {
+            scanner.setPerformanceMode(scanPerformanceMode);
+        }
+    }
+
+    @ReactProp(name = "scannerStatsInterval", defaultInt = 0)
+    public void setScannerStatsInterval(CameraView view, int intervalMs) {
+        scannerStatsInterval = intervalMs;
+        scheduleScannerStats();
+    }
+
+    /**
+     * Debug only: record every preview frame reaching the scanner to the given file, for replaying it off the device.
+     */
+    @ReactProp(name = "scanRecordPath")
+    public void setScanRecordPath(CameraView view, @Nullable String path) {
+        closeFrameRecorder();
+        if (path != null && !path.isEmpty()) {
+            try {
+                frameRecorder = new FrameRecorder(new File(path), FrameRecorder.DEFAULT_MAX_SIZE);
+            } catch (IOException e) {
+                Log.w("CameraKit", "Can't record frames to " + path + ": " + e);
+            }
+        }
+        if (scanner != null) {
+            scanner.setRecorder(frameRecorder);
         }
     }
 
+    private static void closeFrameRecorder() {
+        if (frameRecorder == null) return;
+        if (scanner != null) {
+            scanner.setRecorder(null);
+        }
+        try {
+            frameRecorder.close();
+        } catch (IOException e) {
+            Log.w("CameraKit", "Can't close frame recording: " + e);
+        }
+        frameRecorder = null;
+    }
+
     @ReactProp(name = "showFrame", defaultBoolean = false)
     public void setFrame(CameraView view, boolean show) {
         view.setShowFrame(show);
@@ -333,6 +947,10 @@ public class CameraViewManager extends SimpleViewManager<CameraView> {
     }
 
     public static synchronized Rect getFramingRectInPreview(int previewWidth, int previewHeight) {
-        return cameraViews.peek().getFramingRectInPreview(previewWidth, previewHeight);
+        CameraView cameraView = peekCameraView();
+        if (cameraView == null) {
+            return new Rect(0, 0, previewWidth, previewHeight);
+        }
+        return cameraView.getFramingRectInPreview(previewWidth, previewHeight);
     }
 }
@@ -0,0 +1,42 @@
+package com.wix.RNCameraKit.camera;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.google.zxing.Result;
+
+public class ReadCodeEvent extends Event<ReadCodeEvent> {
+
+    private static final String EVENT_NAME = "onReadCode";
+
+    private final WritableMap event;
+    private final short coalescingKey;
+
+    /**
+     * @param coalescingKey key of the code from the scanner's recent codes, undispatched events of the same code
+     *                      collapse into one while different codes are all delivered
+     */
+    ReadCodeEvent(int viewTag, Result result, short coalescingKey) {
+        init(viewTag);
+        this.coalescingKey = coalescingKey;
+        event = Arguments.createMap();
+        event.putString("codeStringValue", result.getText());
+        event.putString("codeFormat", result.getBarcodeFormat().name());
+    }
+
+    @Override
+    public String getEventName() {
+        return EVENT_NAME;
+    }
+
+    @Override
+    public short getCoalescingKey() {
+        return coalescingKey;
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+        rctEventEmitter.receiveEvent(getViewTag(), EVENT_NAME, event);
+    }
+}
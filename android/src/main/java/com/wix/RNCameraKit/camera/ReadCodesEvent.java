@@ -0,0 +1,67 @@
+package com.wix.RNCameraKit.camera;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+/**
+ * All barcodes decoded from one frame. Every batch is delivered, a newer one never replaces an undispatched one.
+ */
+public class ReadCodesEvent extends Event<ReadCodesEvent> {
+
+    private static final String EVENT_NAME = "onReadCodes";
+
+    private final WritableMap event;
+
+    ReadCodesEvent(int viewTag, Result[] results, int previewWidth, int previewHeight) {
+        init(viewTag);
+        WritableArray codes = Arguments.createArray();
+        for (Result result : results) {
+            codes.pushMap(resultToMap(result));
+        }
+        event = Arguments.createMap();
+        event.putArray("codes", codes);
+        event.putInt("previewWidth", previewWidth);
+        event.putInt("previewHeight", previewHeight);
+    }
+
+    /**
+     * @return the code's value, format and result points
+     */
+    public static WritableMap resultToMap(Result result) {
+        WritableArray points = Arguments.createArray();
+        if (result.getResultPoints() != null) {
+            for (ResultPoint resultPoint : result.getResultPoints()) {
+                if (resultPoint == null) continue;
+                WritableMap point = Arguments.createMap();
+                point.putDouble("x", resultPoint.getX());
+                point.putDouble("y", resultPoint.getY());
+                points.pushMap(point);
+            }
+        }
+        WritableMap code = Arguments.createMap();
+        code.putString("codeStringValue", result.getText());
+        code.putString("codeFormat", result.getBarcodeFormat().name());
+        code.putArray("points", points);
+        return code;
+    }
+
+    @Override
+    public boolean canCoalesce() {
+        return false;
+    }
+
+    @Override
+    public String getEventName() {
+        return EVENT_NAME;
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+        rctEventEmitter.receiveEvent(getViewTag(), EVENT_NAME, event);
+    }
+}
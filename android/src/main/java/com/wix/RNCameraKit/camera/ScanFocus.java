@@ -0,0 +1,116 @@
+package com.wix.RNCameraKit.camera;
+
+import android.graphics.Rect;
+import android.hardware.Camera;
+import android.util.Log;
+
+import com.wix.RNCameraKit.camera.barcode.BarcodeScanner;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Points focus and metering at the barcode framing rect while scanning, instead of whatever dominates the scene,
+ * and runs an autofocus pass when frames stay blurry. The scanner calls it on the decode thread, camera calls are
+ * made on the camera thread.
+ */
+@SuppressWarnings("deprecation")
+// We're still using Camera API 1, everything is deprecated
+class ScanFocus implements BarcodeScanner.FocusHandler {
+
+    private static final int AREA_WEIGHT = 1000;
+
+    // Camera with an autofocus pass in flight, a released camera never calls back
+    private Camera focusingCamera;
+
+    @Override
+    public void onFramingRect(final Rect rect, final int previewWidth, final int previewHeight) {
+        CameraViewManager.runOnCameraThread(new Runnable() {
+            @Override
+            public void run() {
+                setAreas(toCameraAreas(rect, previewWidth, previewHeight));
+            }
+        });
+    }
+
+    @Override
+    public void onFramesBlurry() {
+        CameraViewManager.runOnCameraThread(new Runnable() {
+            @Override
+            public void run() {
+                Camera camera = CameraViewManager.getCamera();
+                CameraParameters parameters = CameraViewManager.getCameraParameters();
+                if (camera == null || parameters == null || camera == focusingCamera) return;
+                try {
+                    String focusMode = parameters.getFocusMode();
+                    if (!Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE.equals(focusMode)
+                            && !Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO.equals(focusMode)
+                            && !Camera.Parameters.FOCUS_MODE_AUTO.equals(focusMode)) {
+                        return;
+                    }
+                    focusingCamera = camera;
+                    camera.autoFocus(new Camera.AutoFocusCallback() {
+                        @Override
+                        public void onAutoFocus(boolean success, Camera camera) {
+                            focusingCamera = null;
+                            try {
+                                // Autofocus locks the lens, cancelling it resumes continuous focus
+                                camera.cancelAutoFocus();
+                            } catch (RuntimeException ignored) {
+                                // Camera got released while focusing
+                            }
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    focusingCamera = null;
+                    Log.w("CameraKit", "Autofocus failed: " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Go back to the camera's default areas once scanning stops. Called on the camera thread.
+     */
+    void clear() {
+        setAreas(null);
+    }
+
+    private static void setAreas(@Nullable List<Camera.Area> areas) {
+        try {
+            CameraViewManager.setFocusAreas(areas);
+        } catch (RuntimeException e) {
+            Log.w("CameraKit", "Can't set focus areas: " + e);
+        }
+    }
+
+    /**
+     * Camera areas are in sensor orientation, scaled to -1000..1000 on both axes.
+     * @param rect framing rect, in portrait preview pixels
+     * @return null when the rect covers the whole preview, leaving the areas to the camera
+     */
+    @Nullable
+    private static List<Camera.Area> toCameraAreas(Rect rect, int previewWidth, int previewHeight) {
+        if (rect.left <= 0 && rect.top <= 0 && rect.right >= previewWidth && rect.bottom >= previewHeight) {
+            return null;
+        }
+        // Portrait pixel (x, y) is sensor pixel (y, previewWidth - 1 - x)
+        int sensorWidth = previewHeight;
+        int sensorHeight = previewWidth;
+        Rect area = new Rect(
+                toAreaCoordinate(rect.top, sensorWidth),
+                toAreaCoordinate(sensorHeight - rect.right, sensorHeight),
+                toAreaCoordinate(rect.bottom, sensorWidth),
+                toAreaCoordinate(sensorHeight - rect.left, sensorHeight));
+        if (area.isEmpty()) {
+            return null;
+        }
+        return Collections.singletonList(new Camera.Area(area, AREA_WEIGHT));
+    }
+
+    private static int toAreaCoordinate(int pixel, int size) {
+        return Math.max(-1000, Math.min(1000, pixel * 2000 / size - 1000));
+    }
+}
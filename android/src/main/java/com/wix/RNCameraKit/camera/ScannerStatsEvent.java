@@ -0,0 +1,62 @@
+package com.wix.RNCameraKit.camera;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.wix.RNCameraKit.camera.barcode.LatencyHistogram;
+import com.wix.RNCameraKit.camera.barcode.ScannerStats;
+
+/**
+ * Periodic snapshot of the scanner statistics. Undispatched snapshots are replaced by newer ones.
+ */
+public class ScannerStatsEvent extends Event<ScannerStatsEvent> {
+
+    private static final String EVENT_NAME = "onScannerStats";
+
+    private final WritableMap event;
+
+    ScannerStatsEvent(int viewTag, ScannerStats stats) {
+        init(viewTag);
+        event = statsToMap(stats);
+    }
+
+    static WritableMap statsToMap(ScannerStats stats) {
+        WritableMap stages = Arguments.createMap();
+        for (ScannerStats.Stage stage : ScannerStats.Stage.values()) {
+            stages.putMap(stage.getName(), histogramToMap(stats.getHistogram(stage)));
+        }
+        WritableMap map = Arguments.createMap();
+        map.putDouble("framesSeen", stats.getFramesSeen());
+        map.putDouble("framesDropped", stats.getFramesDropped());
+        map.putDouble("framesSkipped", stats.getFramesSkipped());
+        map.putDouble("framesBlurry", stats.getFramesBlurry());
+        map.putDouble("framesUnchanged", stats.getFramesUnchanged());
+        map.putDouble("gateSkipRatio", stats.getGateSkipRatio());
+        map.putDouble("framesDecoded", stats.getFramesDecoded());
+        map.putDouble("hits", stats.getHits());
+        map.putMap("stages", stages);
+        return map;
+    }
+
+    private static WritableMap histogramToMap(LatencyHistogram histogram) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("count", histogram.getCount());
+        map.putDouble("meanMs", histogram.getMeanMs());
+        map.putDouble("p50Ms", histogram.getPercentileMs(0.5));
+        map.putDouble("p90Ms", histogram.getPercentileMs(0.9));
+        map.putDouble("p99Ms", histogram.getPercentileMs(0.99));
+        map.putDouble("maxMs", histogram.getMaxMs());
+        return map;
+    }
+
+    @Override
+    public String getEventName() {
+        return EVENT_NAME;
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+        rctEventEmitter.receiveEvent(getViewTag(), EVENT_NAME, event);
+    }
+}
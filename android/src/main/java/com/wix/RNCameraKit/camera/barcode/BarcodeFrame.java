@@ -1,110 +1,187 @@
 package com.wix.RNCameraKit.camera.barcode;
 
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import androidx.annotation.ColorInt;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.LinearInterpolator;
 
 import com.wix.RNCameraKit.R;
 
-public class BarcodeFrame extends View {
+/**
+ * Dims the preview around the framing rect, marks its corners and sweeps a laser line through it while scanning.
+ * The dim and the corners are drawn once into a hardware layer, and drawn again only when the size or the frame color
+ * changes. The laser is a thin child view moved by animating its translation, which only updates its render
+ * properties, so no view is redrawn while it sweeps. The vsync paced animator only runs while scanning with the
+ * window visible.
+ */
+public class BarcodeFrame extends ViewGroup {
 
     private static final int STROKE_WIDTH = 5;
+    // Milliseconds per pixel of laser travel
     private static final int ANIMATION_SPEED = 8;
     private static final int WIDTH_SCALE = 7;
     private static final double HEIGHT_SCALE = 2.75;
 
-    private Paint dimPaint;
-    private Paint framePaint;
-    private Paint borderPaint;
-    private Paint laserPaint;
-    private Rect frameRect;
-    private int width;
-    private int height;
-    private int borderMargin;
+    private final Rect frameRect = new Rect();
+    private final FrameOverlay overlay;
+    private final View laser;
 
-    private long previousFrameTime = System.currentTimeMillis();
-    private int laserY;
+    private ObjectAnimator laserAnimator;
+    private boolean scanning;
 
     public BarcodeFrame(Context context) {
         super(context);
-        init(context);
-    }
-
-    private void init(Context context) {
-        framePaint = new Paint();
-        framePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-        dimPaint = new Paint();
-        dimPaint.setStyle(Paint.Style.FILL);
-        dimPaint.setColor(context.getResources().getColor(R.color.bg_dark));
-        borderPaint = new Paint();
-        borderPaint.setStyle(Paint.Style.STROKE);
-        borderPaint.setStrokeWidth(STROKE_WIDTH);
-        laserPaint = new Paint();
-        laserPaint.setStyle(Paint.Style.STROKE);
-        laserPaint.setStrokeWidth(STROKE_WIDTH);
-
-        frameRect = new Rect();
-        borderMargin = context.getResources().getDimensionPixelSize(R.dimen.border_length);
+        overlay = new FrameOverlay(context, frameRect);
+        overlay.setLayerType(LAYER_TYPE_HARDWARE, null);
+        addView(overlay);
+        laser = new View(context);
+        laser.setVisibility(INVISIBLE);
+        addView(laser);
     }
 
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-
-        width = getMeasuredWidth();
-        height = getMeasuredHeight();
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        int width = right - left;
+        int height = bottom - top;
         int marginWidth = width / WIDTH_SCALE;
         int marginHeight = (int) (height / HEIGHT_SCALE);
 
-        frameRect.left = marginWidth;
-        frameRect.right = width - marginWidth;
-        frameRect.top = marginHeight;
-        frameRect.bottom = height - marginHeight;
+        Rect previous = new Rect(frameRect);
+        frameRect.set(marginWidth, marginHeight, width - marginWidth, height - marginHeight);
+        layoutChild(overlay, 0, 0, width, height);
+        int laserTop = frameRect.top - STROKE_WIDTH / 2;
+        layoutChild(laser, frameRect.left + STROKE_WIDTH, laserTop, frameRect.right - STROKE_WIDTH, laserTop + STROKE_WIDTH);
+        if (!frameRect.equals(previous)) {
+            overlay.invalidate();
+            // The sweep distance and duration follow the frame height
+            updateLaserAnimation(true);
+        }
+    }
+
+    private static void layoutChild(View child, int left, int top, int right, int bottom) {
+        child.measure(MeasureSpec.makeMeasureSpec(Math.max(right - left, 0), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(Math.max(bottom - top, 0), MeasureSpec.EXACTLY));
+        child.layout(left, top, right, bottom);
+    }
+
+    /**
+     * Runs the laser while scanning, stops it and hides the line once scanning is paused.
+     */
+    public void setScanning(boolean scanning) {
+        if (this.scanning == scanning) return;
+        this.scanning = scanning;
+        updateLaserAnimation(false);
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        long timeElapsed = (System.currentTimeMillis() - previousFrameTime);
-        super.onDraw(canvas);
-        canvas.drawRect(0, 0, width, height, dimPaint);
-        canvas.drawRect(frameRect, framePaint);
-        drawBorder(canvas);
-        drawLaser(canvas, timeElapsed);
-        previousFrameTime = System.currentTimeMillis();
-        this.invalidate(frameRect);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateLaserAnimation(false);
     }
 
-    private void drawBorder(Canvas canvas) {
-        canvas.drawLine(frameRect.left, frameRect.top, frameRect.left, frameRect.top + borderMargin, borderPaint);
-        canvas.drawLine(frameRect.left, frameRect.top, frameRect.left + borderMargin, frameRect.top, borderPaint);
-        canvas.drawLine(frameRect.left, frameRect.bottom, frameRect.left, frameRect.bottom - borderMargin, borderPaint);
-        canvas.drawLine(frameRect.left, frameRect.bottom, frameRect.left + borderMargin, frameRect.bottom, borderPaint);
-        canvas.drawLine(frameRect.right, frameRect.top, frameRect.right - borderMargin, frameRect.top, borderPaint);
-        canvas.drawLine(frameRect.right, frameRect.top, frameRect.right, frameRect.top + borderMargin, borderPaint);
-        canvas.drawLine(frameRect.right, frameRect.bottom, frameRect.right, frameRect.bottom - borderMargin, borderPaint);
-        canvas.drawLine(frameRect.right, frameRect.bottom, frameRect.right - borderMargin, frameRect.bottom, borderPaint);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateLaserAnimation(false);
     }
 
-    private void drawLaser(Canvas canvas, long timeElapsed) {
-        if (laserY > frameRect.bottom || laserY < frameRect.top) laserY = frameRect.top;
-        canvas.drawLine(frameRect.left + STROKE_WIDTH, laserY, frameRect.right - STROKE_WIDTH, laserY, laserPaint);
-        laserY += (timeElapsed) / ANIMATION_SPEED;
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateLaserAnimation(false);
+    }
+
+    private void updateLaserAnimation(boolean restart) {
+        boolean run = scanning && getWindowToken() != null && getWindowVisibility() == VISIBLE && !frameRect.isEmpty();
+        if (laserAnimator != null && (!run || restart)) {
+            laserAnimator.cancel();
+            laserAnimator = null;
+        }
+        laser.setVisibility(run ? VISIBLE : INVISIBLE);
+        if (!run || laserAnimator != null) return;
+
+        laserAnimator = ObjectAnimator.ofFloat(laser, View.TRANSLATION_Y, 0, frameRect.height());
+        laserAnimator.setDuration((long) frameRect.height() * ANIMATION_SPEED);
+        laserAnimator.setInterpolator(new LinearInterpolator());
+        laserAnimator.setRepeatCount(ValueAnimator.INFINITE);
+        laserAnimator.start();
     }
 
     public Rect getFrameRect() {
         return frameRect;
     }
 
+    /**
+     * @return share of the view's width covered by the frame
+     */
+    public static float getFrameWidthRatio() {
+        return 1 - 2f / WIDTH_SCALE;
+    }
+
     public void setFrameColor(@ColorInt int borderColor) {
-        borderPaint.setColor(borderColor);
+        overlay.setBorderColor(borderColor);
     }
 
     public void setLaserColor(@ColorInt int laserColor) {
-        laserPaint.setColor(laserColor);
+        laser.setBackgroundColor(laserColor);
+    }
+
+    /**
+     * The dim around the framing rect and its corner marks.
+     */
+    private static class FrameOverlay extends View {
+
+        private final Rect frameRect;
+        private final Paint dimPaint;
+        private final Paint borderPaint;
+        private final int borderMargin;
+
+        FrameOverlay(Context context, Rect frameRect) {
+            super(context);
+            this.frameRect = frameRect;
+            dimPaint = new Paint();
+            dimPaint.setStyle(Paint.Style.FILL);
+            dimPaint.setColor(context.getResources().getColor(R.color.bg_dark));
+            borderPaint = new Paint();
+            borderPaint.setStyle(Paint.Style.STROKE);
+            borderPaint.setStrokeWidth(STROKE_WIDTH);
+            borderMargin = context.getResources().getDimensionPixelSize(R.dimen.border_length);
+        }
+
+        void setBorderColor(@ColorInt int borderColor) {
+            borderPaint.setColor(borderColor);
+            invalidate();
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            super.onDraw(canvas);
+            if (frameRect.isEmpty()) return;
+            int width = getWidth();
+            int height = getHeight();
+            int left = frameRect.left;
+            int top = frameRect.top;
+            int right = frameRect.right;
+            int bottom = frameRect.bottom;
+            canvas.drawRect(0, 0, width, top, dimPaint);
+            canvas.drawRect(0, bottom, width, height, dimPaint);
+            canvas.drawRect(0, top, left, bottom, dimPaint);
+            canvas.drawRect(right, top, width, bottom, dimPaint);
+
+            canvas.drawLine(left, top, left, top + borderMargin, borderPaint);
+            canvas.drawLine(left, top, left + borderMargin, top, borderPaint);
+            canvas.drawLine(left, bottom, left, bottom - borderMargin, borderPaint);
+            canvas.drawLine(left, bottom, left + borderMargin, bottom, borderPaint);
+            canvas.drawLine(right, top, right - borderMargin, top, borderPaint);
+            canvas.drawLine(right, top, right, top + borderMargin, borderPaint);
+            canvas.drawLine(right, bottom, right, bottom - borderMargin, borderPaint);
+            canvas.drawLine(right, bottom, right - borderMargin, bottom, borderPaint);
+        }
     }
 }
@@ -5,141 +5,232 @@ import android.graphics.Rect;
 import android.hardware.Camera;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.BinaryBitmap;
-import com.google.zxing.DecodeHintType;
-import com.google.zxing.LuminanceSource;
-import com.google.zxing.MultiFormatReader;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
+import com.wix.RNCameraKit.camera.CameraParameters;
 import com.wix.RNCameraKit.camera.CameraViewManager;
 
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.Collection;
 
 public class BarcodeScanner {
 
     public interface ResultHandler {
-        void handleResult(Result result);
+        /**
+         * @param coalescingKey the same for every sighting of the code, different for every other recent code
+         */
+        void handleResult(Result result, short coalescingKey);
+
+        /**
+         * Called instead of {@link #handleResult(Result, short)} when scanning for multiple barcodes.
+         * Result points are in portrait preview pixels.
+         */
+        void handleResults(Result[] results, int previewWidth, int previewHeight);
     }
 
-    private MultiFormatReader mMultiFormatReader;
-    private static final List<BarcodeFormat> ALL_FORMATS = new ArrayList<>();
-    private ResultHandler resultHandler;
+    /**
+     * Steers the camera towards the codes being scanned. Called from the decode thread.
+     */
+    public interface FocusHandler {
+        /**
+         * Called on the first frame and whenever the framing rect or preview size changes.
+         * @param rect framing rect, in portrait preview pixels
+         */
+        void onFramingRect(Rect rect, int previewWidth, int previewHeight);
+
+        /**
+         * Called when the {@link FrameGate} keeps finding frames out of focus, at most every few seconds.
+         * Frames are scored against {@link FrameGate#DEFAULT_FOCUS_SHARPNESS} even when the gate skips none.
+         */
+        void onFramesBlurry();
+    }
+
+    // Consecutive blurry frames before refocusing, and the least time between two refocuses
+    private static final int BLURRY_FRAMES_BEFORE_FOCUS = 5;
+    private static final long MIN_FOCUS_INTERVAL_MS = 2000;
 
-    private Camera.PreviewCallback previewCallback;
-
-    static {
-        ALL_FORMATS.add(BarcodeFormat.AZTEC);
-        ALL_FORMATS.add(BarcodeFormat.CODABAR);
-        ALL_FORMATS.add(BarcodeFormat.CODE_39);
-        ALL_FORMATS.add(BarcodeFormat.CODE_93);
-        ALL_FORMATS.add(BarcodeFormat.CODE_128);
-        ALL_FORMATS.add(BarcodeFormat.DATA_MATRIX);
-        ALL_FORMATS.add(BarcodeFormat.EAN_8);
-        ALL_FORMATS.add(BarcodeFormat.EAN_13);
-        ALL_FORMATS.add(BarcodeFormat.ITF);
-        ALL_FORMATS.add(BarcodeFormat.MAXICODE);
-        ALL_FORMATS.add(BarcodeFormat.PDF_417);
-        ALL_FORMATS.add(BarcodeFormat.QR_CODE);
-        ALL_FORMATS.add(BarcodeFormat.RSS_14);
-        ALL_FORMATS.add(BarcodeFormat.RSS_EXPANDED);
-        ALL_FORMATS.add(BarcodeFormat.UPC_A);
-        ALL_FORMATS.add(BarcodeFormat.UPC_E);
-        ALL_FORMATS.add(BarcodeFormat.UPC_EAN_EXTENSION);
-    }
-
-    public BarcodeScanner(@NonNull Camera.PreviewCallback previewCallback, @NonNull ResultHandler resultHandler) {
-        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
-        hints.put(DecodeHintType.POSSIBLE_FORMATS, ALL_FORMATS);
-        mMultiFormatReader = new MultiFormatReader();
-        mMultiFormatReader.setHints(hints);
-
-        this.previewCallback = previewCallback;
+    private ResultHandler resultHandler;
+    private final ScannerStats stats;
+    private final FrameDecoder decoder;
+    private final RecentCodesCache recentCodes = new RecentCodesCache();
+    private volatile boolean multipleBarcodes;
+    private volatile FrameRecorder recorder;
+    private volatile FocusHandler focusHandler;
+    private volatile Rect focusRect;
+    private int focusPreviewWidth;
+    private int blurryFrames;
+    private long lastFocusTime;
+
+    public BarcodeScanner(@NonNull ResultHandler resultHandler, @NonNull ScannerStats stats) {
         this.resultHandler = resultHandler;
+        this.stats = stats;
+        decoder = new FrameDecoder(stats);
     }
 
-    public void onPreviewFrame(byte[] data, final Camera camera) {
-        try {
-            Camera.Size size = camera.getParameters().getPreviewSize();
-            int width = size.width;
-            int height = size.height;
+    /**
+     * Restrict decoding to the given formats, {@code null} or an empty list enables all of them.
+     */
+    public void setFormats(@Nullable Collection<BarcodeFormat> formats) {
+        decoder.setFormats(formats);
+    }
+
+    /**
+     * Report a code again only once it has been out of sight for this long, 0 reports every decoded frame.
+     */
+    public void setSuppressionWindow(long suppressionWindowMs) {
+        recentCodes.setSuppressionWindow(suppressionWindowMs);
+    }
+
+    /**
+     * Decode every barcode in the framing rect instead of stopping at the first one.
+     */
+    public void setMultipleBarcodes(boolean multipleBarcodes) {
+        this.multipleBarcodes = multipleBarcodes;
+    }
+
+    public void setPyramidDecode(boolean pyramidDecode) {
+        decoder.setPyramidDecode(pyramidDecode);
+    }
+
+    public void setTiledDecode(boolean tiledDecode) {
+        decoder.setTiledDecode(tiledDecode);
+    }
+
+    public void setLinearScan(boolean linearScan) {
+        decoder.setLinearScan(linearScan);
+    }
+
+    /**
+     * Skip frames scoring below these thresholds before decoding them, see {@link FrameGate}. 0 disables a check.
+     */
+    public void setFrameGate(double minSharpness, double minChange) {
+        decoder.getGate().setThresholds(minSharpness, minChange);
+    }
 
-            int tmp = width;
-            width = height;
-            height = tmp;
-            data = getRotatedData(data, camera);
+    public void setPerformanceMode(ScanGovernor.PerformanceMode mode) {
+        decoder.getGovernor().setMode(mode);
+    }
+
+    public void setDeviceConstrained(boolean constrained) {
+        decoder.getGovernor().setDeviceConstrained(constrained);
+    }
+
+    public void setFocusHandler(@Nullable FocusHandler focusHandler) {
+        this.focusHandler = focusHandler;
+        // Frames are only scored for focus while someone can act on it
+        decoder.getGate().setFocusSharpness(focusHandler != null ? FrameGate.DEFAULT_FOCUS_SHARPNESS : 0);
+    }
 
-            final Result result = decodeResult(getLuminanceSource(data, width, height));
+    /**
+     * Report the framing rect to the focus handler again on the next frame, after the camera's areas were reset.
+     */
+    public void resetFocus() {
+        focusRect = null;
+    }
+
+    /**
+     * Record every frame reaching the scanner, null stops recording. The recorder is not closed here.
+     */
+    public void setRecorder(@Nullable FrameRecorder recorder) {
+        this.recorder = recorder;
+    }
 
-            if (result != null) {
+    public void onPreviewFrame(byte[] data, final Camera camera) {
+        FrameRecorder recorder = this.recorder;
+        if (recorder != null) {
+            record(recorder, data, camera);
+        }
+        ScanGovernor governor = decoder.getGovernor();
+        long decodeStart = System.nanoTime();
+        if (!governor.shouldDecodeFrame(decodeStart)) {
+            stats.onFrameSkipped();
+            return;
+        }
+        try {
+            CameraParameters parameters = CameraViewManager.getCameraParameters();
+            // A frame of a camera that was released or switched since
+            if (parameters == null || !parameters.isFor(camera)) return;
+            final int frameWidth = parameters.getPreviewWidth();
+            final int frameHeight = parameters.getPreviewHeight();
+            final int previewWidth = frameHeight;
+            final int previewHeight = frameWidth;
+            final boolean multiple = multipleBarcodes;
+            Rect rect = CameraViewManager.getFramingRectInPreview(previewWidth, previewHeight);
+            FocusHandler focusHandler = this.focusHandler;
+            if (focusHandler != null && (!rect.equals(focusRect) || previewWidth != focusPreviewWidth)) {
+                focusRect = new Rect(rect);
+                focusPreviewWidth = previewWidth;
+                focusHandler.onFramingRect(focusRect, previewWidth, previewHeight);
+            }
+            FrameGate.Verdict verdict = decoder.getGate().evaluate(data, frameWidth, frameHeight, rect.left, rect.top, rect.right, rect.bottom);
+            onFocusVerdict(focusHandler, decoder.getGate().isOutOfFocus());
+            if (verdict != FrameGate.Verdict.DECODE) {
+                stats.onFrameGated(verdict);
+                return;
+            }
+            final Result[] results = decoder.decode(data, frameWidth, frameHeight, rect.left, rect.top, rect.right, rect.bottom, multiple);
+            governor.onFrameDecoded(System.nanoTime() - decodeStart, results != null);
+            stats.onFrameDecoded(results != null);
+
+            if (results != null && hasNewCode(results)) {
+                final long dispatchStart = System.nanoTime();
+                final short coalescingKey = multiple ? 0
+                        : recentCodes.getCoalescingKey(results[0].getBarcodeFormat(), results[0].getText());
                 new Handler(Looper.getMainLooper()).post(new Runnable() {
                     @Override
                     public void run() {
-                        resultHandler.handleResult(result);
+                        if (multiple) {
+                            resultHandler.handleResults(results, previewWidth, previewHeight);
+                        } else {
+                            resultHandler.handleResult(results[0], coalescingKey);
+                        }
+                        stats.record(ScannerStats.Stage.DISPATCH, System.nanoTime() - dispatchStart);
                     }
                 });
             }
-            camera.setOneShotPreviewCallback(previewCallback);
         } catch (RuntimeException e) {
             Log.w("CameraKit", e.toString());
         }
     }
 
-    @Nullable
-    private Result decodeResult(LuminanceSource source) {
-        Result rawResult = null;
-        if (source != null) {
-            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-            try {
-                rawResult = mMultiFormatReader.decodeWithState(bitmap);
-            } catch (ReaderException ignored) {
-            } finally {
-                mMultiFormatReader.reset();
-            }
-
-            if (rawResult == null && source.isRotateSupported()) {
-                LuminanceSource rotatedSource = source.rotateCounterClockwise();
-                bitmap = new BinaryBitmap(new HybridBinarizer(rotatedSource));
-                try {
-                    rawResult = mMultiFormatReader.decodeWithState(bitmap);
-                } catch (ReaderException ignored) {
-                } finally {
-                    mMultiFormatReader.reset();
-                }
-            }
+    private void onFocusVerdict(@Nullable FocusHandler focusHandler, boolean outOfFocus) {
+        if (!outOfFocus) {
+            blurryFrames = 0;
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (++blurryFrames >= BLURRY_FRAMES_BEFORE_FOCUS && now - lastFocusTime >= MIN_FOCUS_INTERVAL_MS && focusHandler != null) {
+            blurryFrames = 0;
+            lastFocusTime = now;
+            focusHandler.onFramesBlurry();
         }
-        return rawResult;
     }
 
-    private LuminanceSource getLuminanceSource(byte[] data, int width, int height) {
-        Rect rect = CameraViewManager.getFramingRectInPreview(width, height);
+    private void record(FrameRecorder recorder, byte[] data, Camera camera) {
         try {
-            return new RotateLuminanceSource(data, width, height, rect.left, rect.top,
-                    rect.width(), rect.height(), false);
-        } catch (Exception e) {
-            e.printStackTrace();
+            CameraParameters parameters = CameraViewManager.getCameraParameters();
+            if (parameters == null || !parameters.isFor(camera)) return;
+            int width = parameters.getPreviewWidth();
+            int height = parameters.getPreviewHeight();
+            Rect rect = CameraViewManager.getFramingRectInPreview(height, width);
+            recorder.record(data, width, height, CameraViewManager.getRotationCount() * 90,
+                    rect.left, rect.top, rect.right, rect.bottom, System.nanoTime());
+        } catch (IOException | RuntimeException e) {
+            Log.w("CameraKit", "Frame recording failed: " + e);
         }
-        return null;
     }
 
-    private byte[] getRotatedData(byte[] data, Camera camera) {
-        Camera.Size size = camera.getParameters().getPreviewSize();
-        int width = size.width;
-        int height = size.height;
-
-        byte[] rotatedData = new byte[data.length];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++)
-                rotatedData[x * height + height - y - 1] = data[x + y * width];
+    private boolean hasNewCode(Result[] results) {
+        long now = SystemClock.elapsedRealtime();
+        boolean hasNewCode = false;
+        for (Result result : results) {
+            hasNewCode |= recentCodes.onCodeSeen(result.getBarcodeFormat(), result.getText(), now);
         }
-        return rotatedData;
+        return hasNewCode;
     }
 }
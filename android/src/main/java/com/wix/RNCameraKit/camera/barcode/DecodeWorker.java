@@ -0,0 +1,78 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import android.hardware.Camera;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Long-lived thread that runs barcode decoding off the camera callback thread.
+ * Frames are handed over through a single slot: a frame posted while the previous one is still
+ * waiting replaces it, so the decoder always works on the latest preview and never builds a backlog.
+ */
+@SuppressWarnings("deprecation")
+public class DecodeWorker {
+
+    public interface FrameConsumer {
+        void onFrame(byte[] data, Camera camera);
+
+        void onFrameDropped(byte[] data, Camera camera);
+    }
+
+    private static class Frame {
+        final byte[] data;
+        final Camera camera;
+        final long postedNanos;
+
+        Frame(byte[] data, Camera camera, long postedNanos) {
+            this.data = data;
+            this.camera = camera;
+            this.postedNanos = postedNanos;
+        }
+    }
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final FrameConsumer consumer;
+    private final ScannerStats stats;
+    private final AtomicReference<Frame> pendingFrame = new AtomicReference<>();
+
+    private final Runnable drainPendingFrame = new Runnable() {
+        @Override
+        public void run() {
+            Frame frame = pendingFrame.getAndSet(null);
+            if (frame == null) return;
+            stats.record(ScannerStats.Stage.QUEUE_WAIT, System.nanoTime() - frame.postedNanos);
+            consumer.onFrame(frame.data, frame.camera);
+        }
+    };
+
+    public DecodeWorker(String name, ScannerStats stats, FrameConsumer consumer) {
+        this.consumer = consumer;
+        this.stats = stats;
+        thread = new HandlerThread(name, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Queue a frame for decoding, replacing any frame that has not been picked up yet.
+     */
+    public void post(byte[] data, Camera camera) {
+        stats.onFrameSeen();
+        Frame previous = pendingFrame.getAndSet(new Frame(data, camera, System.nanoTime()));
+        if (previous == null) {
+            handler.post(drainPendingFrame);
+        } else {
+            stats.onFrameDropped();
+            consumer.onFrameDropped(previous.data, previous.camera);
+        }
+    }
+
+    public void quit() {
+        pendingFrame.set(null);
+        thread.quit();
+    }
+}
@@ -0,0 +1,236 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.oned.OneDReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * zxing reader restricted to a set of barcode formats.
+ * When only one-dimensional formats are enabled the 1D readers are used directly, and a single
+ * two-dimensional format gets its dedicated reader, skipping the {@link MultiFormatReader} dispatch.
+ * Mixed sets try the reader of every symbology in turn, like {@link MultiFormatReader}, but in the order of
+ * their recent hits, see {@link SymbologyAffinity}.
+ * Not thread safe, every decoding thread needs its own instance.
+ */
+class FormatReader implements Reader {
+
+    static final Set<BarcodeFormat> ONE_D_FORMATS = EnumSet.of(
+            BarcodeFormat.CODABAR,
+            BarcodeFormat.CODE_39,
+            BarcodeFormat.CODE_93,
+            BarcodeFormat.CODE_128,
+            BarcodeFormat.EAN_8,
+            BarcodeFormat.EAN_13,
+            BarcodeFormat.ITF,
+            BarcodeFormat.RSS_14,
+            BarcodeFormat.RSS_EXPANDED,
+            BarcodeFormat.UPC_A,
+            BarcodeFormat.UPC_E,
+            BarcodeFormat.UPC_EAN_EXTENSION);
+
+    // Detectors of these formats find the code in any orientation, decoding a rotated frame won't help
+    private static final Set<BarcodeFormat> ROTATION_INVARIANT_FORMATS = EnumSet.of(
+            BarcodeFormat.QR_CODE,
+            BarcodeFormat.DATA_MATRIX,
+            BarcodeFormat.AZTEC);
+
+    private final Collection<BarcodeFormat> formats;
+    private final Map<DecodeHintType, Object> hints;
+    // Reader of every enabled symbology by ordinal, reader is set instead of affinity when there is only one
+    private final Reader[] readers = new Reader[SymbologyAffinity.Symbology.values().length];
+    @Nullable
+    private final Reader reader;
+    @Nullable
+    private final SymbologyAffinity affinity;
+    private final boolean rotationNeeded;
+
+    FormatReader(Collection<BarcodeFormat> formats) {
+        this(formats, false);
+    }
+
+    /**
+     * @param tryHarder spend more time looking for codes, for still images rather than a stream of frames
+     */
+    FormatReader(Collection<BarcodeFormat> formats, boolean tryHarder) {
+        this.formats = new ArrayList<>(formats);
+        hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, this.formats);
+        if (tryHarder) {
+            hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        }
+        Reader lastReader = null;
+        int symbologies = 0;
+        for (BarcodeFormat format : this.formats) {
+            SymbologyAffinity.Symbology symbology = SymbologyAffinity.Symbology.of(format);
+            if (readers[symbology.ordinal()] == null) {
+                lastReader = readers[symbology.ordinal()] = createReader(symbology, hints);
+                symbologies++;
+            }
+        }
+        reader = symbologies == 1 ? lastReader : null;
+        affinity = symbologies > 1 ? new SymbologyAffinity() : null;
+        rotationNeeded = !ROTATION_INVARIANT_FORMATS.containsAll(this.formats);
+    }
+
+    private static Reader createReader(SymbologyAffinity.Symbology symbology, Map<DecodeHintType, Object> hints) {
+        switch (symbology) {
+            case QR_CODE:
+                return new QRCodeReader();
+            case DATA_MATRIX:
+                return new DataMatrixReader();
+            case AZTEC:
+                return new AztecReader();
+            case PDF_417:
+                return new PDF417Reader();
+            case MAXICODE:
+                return new MaxiCodeReader();
+            default:
+                return new MultiFormatOneDReader(hints);
+        }
+    }
+
+    @Override
+    public Result decode(BinaryBitmap bitmap) throws NotFoundException, ChecksumException, FormatException {
+        if (reader != null) {
+            try {
+                return reader.decode(bitmap, hints);
+            } finally {
+                reader.reset();
+            }
+        }
+
+        for (SymbologyAffinity.Symbology symbology : affinity.getOrder()) {
+            Reader symbologyReader = readers[symbology.ordinal()];
+            if (symbologyReader == null || !affinity.isTried(symbology)) continue;
+            try {
+                return symbologyReader.decode(bitmap, hints);
+            } catch (ReaderException ignored) {
+                // Try the next symbology
+            } finally {
+                symbologyReader.reset();
+            }
+        }
+        throw NotFoundException.getNotFoundInstance();
+    }
+
+    /**
+     * Hints are fixed at construction, the ones passed in are ignored.
+     */
+    @Override
+    public Result decode(BinaryBitmap bitmap, Map<DecodeHintType, ?> hints) throws NotFoundException, ChecksumException, FormatException {
+        return decode(bitmap);
+    }
+
+    @Override
+    public void reset() {
+        // Every decode already resets the underlying reader
+    }
+
+    /**
+     * Called before decoding the region of the last hit, see {@link SymbologyAffinity#onRegionAttempt()}.
+     */
+    void onRegionAttempt() {
+        if (affinity != null) {
+            affinity.onRegionAttempt();
+        }
+    }
+
+    /**
+     * Called before a pass over the whole framing rect, see {@link SymbologyAffinity#onFullPass(boolean)}.
+     */
+    void onFullPass(boolean regionLost) {
+        if (affinity != null) {
+            affinity.onFullPass(regionLost);
+        }
+    }
+
+    /**
+     * Called for every code found, so the symbologies seen most often are tried first.
+     */
+    void onHit(BarcodeFormat format) {
+        if (affinity != null) {
+            affinity.onHit(format);
+        }
+    }
+
+    /**
+     * Binarize the source and decode it, as the preview and still image decoders do for every attempt.
+     * @param multiple decode every barcode in the source instead of stopping at the first one
+     * @return decoded barcodes in source pixels, or null when nothing was found
+     */
+    @Nullable
+    Result[] decode(LuminanceSource source, boolean multiple) {
+        BinaryBitmap bitmap = new BinaryBitmap(new ReusableHybridBinarizer(source));
+        try {
+            if (multiple) {
+                return new GenericMultipleBarcodeReader(this).decodeMultiple(bitmap, hints);
+            }
+            return new Result[] {decode(bitmap)};
+        } catch (ReaderException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * Decode a single binarized row, only supported when every format is one-dimensional.
+     * @return the code found on the row, or null
+     */
+    @Nullable
+    Result decodeRow(int rowNumber, BitArray row) {
+        try {
+            return ((OneDReader) reader).decodeRow(rowNumber, row, hints);
+        } catch (ReaderException ignored) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * @return whether every format is one-dimensional, so codes can be read from single rows
+     */
+    boolean isOneDimensional() {
+        return reader instanceof OneDReader;
+    }
+
+    /**
+     * @return whether a miss is worth retrying on the frame rotated by 90 degrees
+     */
+    boolean isRotationNeeded() {
+        return rotationNeeded;
+    }
+
+    Collection<BarcodeFormat> getFormats() {
+        return formats;
+    }
+
+    Map<DecodeHintType, Object> getHints() {
+        return hints;
+    }
+}
@@ -0,0 +1,364 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes barcodes from preview frames. Has no Android dependencies, so the same pipeline can run on a plain JVM.
+ * Buffers and tracking state are kept between frames, an instance must only be used from one thread at a time.
+ */
+public class FrameDecoder {
+
+    static final List<BarcodeFormat> ALL_FORMATS = new ArrayList<>();
+    private volatile FormatReader formatReader = new FormatReader(ALL_FORMATS);
+    private final ScannerStats stats;
+    private final ScanGovernor governor = new ScanGovernor();
+    private final FrameGate gate = new FrameGate();
+    private final RegionTracker regionTracker = new RegionTracker();
+    private volatile boolean pyramidDecode;
+    private volatile boolean tiledDecode;
+    private TiledDecoder tiledDecoder;
+    private volatile boolean linearScan;
+    private ScanlineDecoder scanlineDecoder;
+    private final LuminancePyramid pyramid = new LuminancePyramid();
+    private byte[] cropBuffer;
+    private int cropLeft;
+    private int cropTop;
+    private long frameDecodeNanos;
+
+    static {
+        ALL_FORMATS.add(BarcodeFormat.AZTEC);
+        ALL_FORMATS.add(BarcodeFormat.CODABAR);
+        ALL_FORMATS.add(BarcodeFormat.CODE_39);
+        ALL_FORMATS.add(BarcodeFormat.CODE_93);
+        ALL_FORMATS.add(BarcodeFormat.CODE_128);
+        ALL_FORMATS.add(BarcodeFormat.DATA_MATRIX);
+        ALL_FORMATS.add(BarcodeFormat.EAN_8);
+        ALL_FORMATS.add(BarcodeFormat.EAN_13);
+        ALL_FORMATS.add(BarcodeFormat.ITF);
+        ALL_FORMATS.add(BarcodeFormat.MAXICODE);
+        ALL_FORMATS.add(BarcodeFormat.PDF_417);
+        ALL_FORMATS.add(BarcodeFormat.QR_CODE);
+        ALL_FORMATS.add(BarcodeFormat.RSS_14);
+        ALL_FORMATS.add(BarcodeFormat.RSS_EXPANDED);
+        ALL_FORMATS.add(BarcodeFormat.UPC_A);
+        ALL_FORMATS.add(BarcodeFormat.UPC_E);
+        ALL_FORMATS.add(BarcodeFormat.UPC_EAN_EXTENSION);
+    }
+
+    public FrameDecoder() {
+        this(new ScannerStats());
+    }
+
+    /**
+     * @param stats receives the rotation, luminance and decode time of every frame
+     */
+    public FrameDecoder(ScannerStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Restrict decoding to the given formats, {@code null} or an empty list enables all of them.
+     */
+    public void setFormats(@Nullable Collection<BarcodeFormat> formats) {
+        formatReader = new FormatReader(formats == null || formats.isEmpty() ? ALL_FORMATS : formats);
+    }
+
+    /**
+     * Try half and quarter resolution copies of the framing rect before the full resolution one.
+     * Large or close codes decode from the coarse levels at a fraction of the binarization cost.
+     */
+    public void setPyramidDecode(boolean pyramidDecode) {
+        this.pyramidDecode = pyramidDecode;
+    }
+
+    /**
+     * Decode large framing rects as overlapping tiles on all cores. Multiple barcode scanning always decodes in one piece.
+     */
+    public void setTiledDecode(boolean tiledDecode) {
+        this.tiledDecode = tiledDecode;
+    }
+
+    /**
+     * Read one-dimensional codes from a few rows through the middle of the framing rect instead of binarizing all of it.
+     * Only used when every enabled format is one-dimensional and a single barcode is scanned for.
+     */
+    public void setLinearScan(boolean linearScan) {
+        this.linearScan = linearScan;
+    }
+
+    public ScanGovernor getGovernor() {
+        return governor;
+    }
+
+    public FrameGate getGate() {
+        return gate;
+    }
+
+    /**
+     * Forget the region of the last hit, the next frame is scanned in full.
+     */
+    public void resetTracking() {
+        regionTracker.reset();
+    }
+
+    /**
+     * @param data preview frame in sensor orientation, only its Y plane is read
+     * @param width width of the preview frame
+     * @param height height of the preview frame
+     * @param frameLeft framing rect, in portrait preview pixels
+     * @param multiple decode every barcode in the framing rect instead of stopping at the first one
+     * @return decoded barcodes with result points in portrait preview pixels, or null when nothing was found
+     */
+    @Nullable
+    public Result[] decode(byte[] data, int width, int height, int frameLeft, int frameTop, int frameRight, int frameBottom, boolean multiple) {
+        frameDecodeNanos = 0;
+        FormatReader reader = formatReader;
+        Result[] results;
+        if (linearScan && !multiple && reader.isOneDimensional()) {
+            results = decodeScanlines(reader, getLuminanceView(data, width, height, frameLeft, frameTop, frameRight, frameBottom));
+        } else {
+            results = decodeResults(reader, getLuminanceSource(data, width, height, frameLeft, frameTop, frameRight, frameBottom), multiple);
+        }
+        if (frameDecodeNanos > 0) {
+            stats.record(ScannerStats.Stage.DECODE, frameDecodeNanos);
+        }
+        gate.onDecoded(results == null && !regionTracker.hasRegion());
+        if (results != null) {
+            for (Result result : results) {
+                reader.onHit(result.getBarcodeFormat());
+            }
+        }
+        return results;
+    }
+
+    @Nullable
+    private Result[] decodeResults(FormatReader reader, @Nullable LuminanceSource source, boolean multiple) {
+        if (source == null) {
+            return null;
+        }
+        boolean regionLost = false;
+        if (!multiple && regionTracker.hasRegion()) {
+            reader.onRegionAttempt();
+            Result[] results = decodeTrackedRegion(reader, source);
+            if (results != null || regionTracker.hasRegion()) {
+                return results;
+            }
+            regionLost = true;
+        }
+        reader.onFullPass(regionLost);
+
+        if (tiledDecode && !multiple && TiledDecoder.isWorthwhile(source)) {
+            return decodeTiled(reader, source);
+        }
+
+        long luminanceStart = System.nanoTime();
+        int levels = pyramidDecode ? pyramid.build(source) : 0;
+        stats.record(ScannerStats.Stage.LUMINANCE, System.nanoTime() - luminanceStart);
+        boolean rotationNeeded = reader.isRotationNeeded() && source.isRotateSupported();
+        boolean rotated = rotationNeeded && governor.takeRotatedTurn();
+        Result[] results = decodeLevels(reader, source, levels, rotated, multiple);
+        if (results == null && !rotated && rotationNeeded && governor.shouldRotateInline()) {
+            rotated = true;
+            results = decodeLevels(reader, source, levels, true, multiple);
+        }
+        if (results != null && !multiple) {
+            regionTracker.onHit(results[0].getResultPoints(), rotated);
+        }
+        return results;
+    }
+
+    @Nullable
+    private Result[] decodeTiled(FormatReader reader, LuminanceSource source) {
+        if (tiledDecoder == null) {
+            tiledDecoder = new TiledDecoder();
+        }
+        long decodeStart = System.nanoTime();
+        TiledDecoder.Hit hit = tiledDecoder.decode(reader, source, cropLeft, cropTop);
+        frameDecodeNanos += System.nanoTime() - decodeStart;
+        if (hit == null) {
+            return null;
+        }
+        regionTracker.onHit(hit.results[0].getResultPoints(), hit.rotated);
+        return hit.results;
+    }
+
+    @Nullable
+    private Result[] decodeScanlines(FormatReader reader, @Nullable LuminanceSource source) {
+        if (source == null) {
+            return null;
+        }
+        if (scanlineDecoder == null) {
+            scanlineDecoder = new ScanlineDecoder();
+        }
+        // Scanlines always cover the whole framing rect, a region left from a full decode would stop the gate skipping frames
+        regionTracker.reset();
+        long decodeStart = System.nanoTime();
+        Result result = scanlineDecoder.decode(reader, source);
+        frameDecodeNanos += System.nanoTime() - decodeStart;
+        return result == null ? null : toPreviewCoordinates(new Result[] {result}, cropLeft, cropTop, 1, 0);
+    }
+
+    /**
+     * Decode only the padded region around the last hit, in the orientation the code was found in.
+     */
+    @Nullable
+    private Result[] decodeTrackedRegion(FormatReader reader, LuminanceSource source) {
+        int left = Math.max(regionTracker.getLeft() - cropLeft, 0);
+        int top = Math.max(regionTracker.getTop() - cropTop, 0);
+        int right = Math.min(regionTracker.getRight() - cropLeft, source.getWidth());
+        int bottom = Math.min(regionTracker.getBottom() - cropTop, source.getHeight());
+        if (right <= left || bottom <= top) {
+            regionTracker.reset();
+            return null;
+        }
+
+        boolean rotated = regionTracker.isRotated();
+        LuminanceSource region = source.crop(left, top, right - left, bottom - top);
+        Result[] results = decodeRegion(reader, region, cropLeft + left, cropTop + top, 1, rotated, false);
+        if (results != null) {
+            regionTracker.onHit(results[0].getResultPoints(), rotated);
+        } else {
+            regionTracker.onMiss();
+        }
+        return results;
+    }
+
+    /**
+     * Try the downsampled levels of the framing rect, coarsest first, and the full resolution crop only if they all miss.
+     */
+    @Nullable
+    private Result[] decodeLevels(FormatReader reader, LuminanceSource source, int levels, boolean rotated, boolean multiple) {
+        for (int level = levels - 1; level >= 0; level--) {
+            Result[] results = decodeRegion(reader, pyramid.getLevel(level), cropLeft, cropTop, LuminancePyramid.getScale(level), rotated, multiple);
+            if (results != null) {
+                return results;
+            }
+        }
+        return decodeRegion(reader, source, cropLeft, cropTop, 1, rotated, multiple);
+    }
+
+    /**
+     * @param left preview x of the source's top left pixel
+     * @param top preview y of the source's top left pixel
+     * @param scale preview pixels per source pixel
+     * @param rotated whether to decode the source rotated counter clockwise
+     */
+    @Nullable
+    private Result[] decodeRegion(FormatReader reader, LuminanceSource source, int left, int top, int scale, boolean rotated, boolean multiple) {
+        LuminanceSource decodedSource = rotated ? source.rotateCounterClockwise() : source;
+        return toPreviewCoordinates(decode(reader, decodedSource, multiple), left, top, scale, rotated ? source.getWidth() : 0);
+    }
+
+    @Nullable
+    private Result[] decode(FormatReader reader, LuminanceSource source, boolean multiple) {
+        long decodeStart = System.nanoTime();
+        try {
+            return reader.decode(source, multiple);
+        } finally {
+            frameDecodeNanos += System.nanoTime() - decodeStart;
+        }
+    }
+
+    /**
+     * Map result points from the decoded source back to portrait preview pixels.
+     * @param left preview x of the decoded region
+     * @param top preview y of the decoded region
+     * @param scale preview pixels per decoded pixel
+     * @param rotatedWidth width of the region before it was rotated counter clockwise, 0 if it wasn't rotated
+     */
+    @Nullable
+    static Result[] toPreviewCoordinates(@Nullable Result[] results, int left, int top, int scale, int rotatedWidth) {
+        if (results == null) {
+            return null;
+        }
+        for (int i = 0; i < results.length; i++) {
+            Result result = results[i];
+            ResultPoint[] points = result.getResultPoints();
+            if (points == null) continue;
+
+            ResultPoint[] previewPoints = new ResultPoint[points.length];
+            for (int j = 0; j < points.length; j++) {
+                ResultPoint point = points[j];
+                if (point == null) continue;
+                float x = rotatedWidth > 0 ? rotatedWidth - 1 - point.getY() : point.getX();
+                float y = rotatedWidth > 0 ? point.getX() : point.getY();
+                previewPoints[j] = new ResultPoint(left + x * scale, top + y * scale);
+            }
+            results[i] = new Result(result.getText(), result.getRawBytes(), previewPoints, result.getBarcodeFormat(), result.getTimestamp());
+            results[i].putAllMetadata(result.getResultMetadata());
+        }
+        return results;
+    }
+
+    /**
+     * Preview frames arrive in sensor orientation while the framing rect is given in portrait preview coordinates.
+     * Only the framing rect is rotated into portrait, so pixels outside of it are never touched.
+     */
+    @Nullable
+    LuminanceSource getLuminanceSource(byte[] data, int width, int height, int frameLeft, int frameTop, int frameRight, int frameBottom) {
+        int rotatedWidth = height;
+        int rotatedHeight = width;
+        int left = Math.max(frameLeft, 0);
+        int top = Math.max(frameTop, 0);
+        int cropWidth = Math.min(frameRight, rotatedWidth) - left;
+        int cropHeight = Math.min(frameBottom, rotatedHeight) - top;
+        if (cropWidth <= 0 || cropHeight <= 0) {
+            return null;
+        }
+
+        cropLeft = left;
+        cropTop = top;
+        long rotationStart = System.nanoTime();
+        byte[] rotatedCrop = getRotatedCrop(data, width, height, left, top, cropWidth, cropHeight);
+        stats.record(ScannerStats.Stage.ROTATION, System.nanoTime() - rotationStart);
+        return new TransformLuminanceSource(rotatedCrop, cropWidth, cropHeight, 0, 0, cropWidth, cropHeight);
+    }
+
+    /**
+     * Same area as {@link #getLuminanceSource}, viewed through a rotating index transform instead of copied into portrait.
+     * Cheaper when only a few rows of it are read, every row is a strided read across the sensor rows.
+     */
+    @Nullable
+    LuminanceSource getLuminanceView(byte[] data, int width, int height, int frameLeft, int frameTop, int frameRight, int frameBottom) {
+        int left = Math.max(frameLeft, 0);
+        int top = Math.max(frameTop, 0);
+        int cropWidth = Math.min(frameRight, height) - left;
+        int cropHeight = Math.min(frameBottom, width) - top;
+        if (cropWidth <= 0 || cropHeight <= 0) {
+            return null;
+        }
+
+        cropLeft = left;
+        cropTop = top;
+        // Portrait pixel (x, y) is sensor pixel (y, height - 1 - x)
+        return new TransformLuminanceSource(data, width, height, top, height - left - cropWidth, cropHeight, cropWidth).rotateClockwise();
+    }
+
+    /**
+     * Rotate the crop clockwise into a reusable buffer. Rotated pixel (x, y) comes from sensor pixel
+     * (y, height - 1 - x), so every column of the crop is a contiguous run of one sensor row.
+     */
+    byte[] getRotatedCrop(byte[] data, int width, int height, int left, int top, int cropWidth, int cropHeight) {
+        int area = cropWidth * cropHeight;
+        if (cropBuffer == null || cropBuffer.length != area) {
+            cropBuffer = new byte[area];
+        }
+        byte[] rotatedData = cropBuffer;
+        for (int x = 0; x < cropWidth; x++) {
+            int inputOffset = (height - 1 - left - x) * width + top;
+            for (int y = 0, outputOffset = x; y < cropHeight; y++, outputOffset += cropWidth) {
+                rotatedData[outputOffset] = data[inputOffset + y];
+            }
+        }
+        return rotatedData;
+    }
+}
@@ -0,0 +1,134 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+/**
+ * Cheap pre-filter deciding whether a frame is worth decoding, from a sparse grid of samples over the framing rect.
+ * Skips frames too blurry to decode, scored as the mean squared luminance gradient, and frames that barely differ
+ * from the last decoded frame when a full scan of it found no code, scored as the mean absolute luminance difference (0-255).
+ * A threshold of 0 disables its check. Sharpness is also compared to a separate focus threshold, so blurry frames can
+ * trigger an autofocus pass while they're still decoded. Called from the decode thread only, except for the setters.
+ */
+public class FrameGate {
+
+    public enum Verdict {
+        DECODE,
+        BLURRY,
+        UNCHANGED
+    }
+
+    /**
+     * Focus threshold used by the scanner, frames scoring lower are out of focus for most codes
+     */
+    public static final double DEFAULT_FOCUS_SHARPNESS = 20;
+
+    private static final int GRID_SIZE = 64;
+
+    private volatile double minSharpness;
+    private volatile double minChange;
+    private volatile double focusSharpness;
+
+    private byte[] samples = new byte[0];
+    private byte[] reference = new byte[0];
+    private boolean lastScanMissed;
+    private boolean outOfFocus;
+
+    /**
+     * @param minSharpness frames scoring lower are skipped as blurry, around 20 is a reasonable start
+     * @param minChange frames closer than this to the last missed frame are skipped as unchanged
+     */
+    public void setThresholds(double minSharpness, double minChange) {
+        this.minSharpness = minSharpness;
+        this.minChange = minChange;
+    }
+
+    /**
+     * @param focusSharpness frames scoring lower are reported by {@link #isOutOfFocus()}, whether or not they're
+     *                       skipped, 0 disables it
+     */
+    public void setFocusSharpness(double focusSharpness) {
+        this.focusSharpness = focusSharpness;
+    }
+
+    /**
+     * @return whether the last evaluated frame scored lower than the focus threshold or was skipped as blurry
+     */
+    public boolean isOutOfFocus() {
+        return outOfFocus;
+    }
+
+    /**
+     * @param data preview frame in sensor orientation, only its Y plane is read
+     * @param frameLeft framing rect, in portrait preview pixels
+     */
+    public Verdict evaluate(byte[] data, int width, int height, int frameLeft, int frameTop, int frameRight, int frameBottom) {
+        double minSharpness = this.minSharpness;
+        double minChange = this.minChange;
+        double focusSharpness = this.focusSharpness;
+        outOfFocus = false;
+        if (minSharpness <= 0 && minChange <= 0 && focusSharpness <= 0) {
+            return Verdict.DECODE;
+        }
+
+        // Portrait pixel (x, y) is sensor pixel (y, height - 1 - x)
+        int left = Math.max(frameTop, 0);
+        int right = Math.min(frameBottom, width);
+        int top = Math.max(height - frameRight, 0);
+        int bottom = Math.min(height - frameLeft, height);
+        if (right - left < 2 || bottom - top < 2) {
+            return Verdict.DECODE;
+        }
+
+        int stepX = Math.max(1, (right - left) / GRID_SIZE);
+        int stepY = Math.max(1, (bottom - top) / GRID_SIZE);
+        int columns = (right - 1 - left + stepX - 1) / stepX;
+        int rows = (bottom - 1 - top + stepY - 1) / stepY;
+        if (samples.length != columns * rows) {
+            samples = new byte[columns * rows];
+        }
+
+        long gradientEnergy = 0;
+        int sample = 0;
+        for (int y = top; y < bottom - 1; y += stepY) {
+            int row = y * width;
+            for (int x = left; x < right - 1; x += stepX) {
+                int pixel = data[row + x] & 0xff;
+                int dx = (data[row + x + 1] & 0xff) - pixel;
+                int dy = (data[row + width + x] & 0xff) - pixel;
+                gradientEnergy += dx * dx + dy * dy;
+                samples[sample++] = (byte) pixel;
+            }
+        }
+
+        double sharpness = gradientEnergy / (double) sample;
+        outOfFocus = focusSharpness > 0 && sharpness < focusSharpness;
+        if (minSharpness > 0 && sharpness < minSharpness) {
+            outOfFocus = true;
+            return Verdict.BLURRY;
+        }
+        if (minChange > 0 && lastScanMissed && reference.length == sample && getDifference(samples, reference) < minChange) {
+            return Verdict.UNCHANGED;
+        }
+
+        // Keep the samples of decoded frames only, slow drift past the last miss still adds up
+        byte[] decodedSamples = samples;
+        samples = reference;
+        reference = decodedSamples;
+        return Verdict.DECODE;
+    }
+
+    /**
+     * Called after every decoded frame, whether it was evaluated or not.
+     * @param scanMissed whether the whole framing rect was scanned without finding a code. Misses of a partial
+     *                   scan, such as the region a code was last seen in, don't count as the frame is rescanned in full soon.
+     */
+    public void onDecoded(boolean scanMissed) {
+        lastScanMissed = scanMissed;
+    }
+
+    private static double getDifference(byte[] samples, byte[] reference) {
+        long difference = 0;
+        for (int i = 0; i < samples.length; i++) {
+            difference += Math.abs((samples[i] & 0xff) - (reference[i] & 0xff));
+        }
+        return difference / (double) samples.length;
+    }
+}
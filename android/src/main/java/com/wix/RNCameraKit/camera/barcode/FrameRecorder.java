@@ -0,0 +1,93 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends preview frames to a memory-mapped file, so scanning sessions can be replayed through
+ * {@link FrameDecoder} without a device.
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by one record per frame: data length,
+ * preview width, height, rotation, framing rect left, top, right and bottom as ints, the timestamp in
+ * nanoseconds as a long, then the frame data as delivered by the camera. Numbers are big endian.
+ * Frames that would grow the file past its size limit are not recorded.
+ */
+public class FrameRecorder implements Closeable {
+
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+
+    static final int MAGIC = 0x434b4652; // "CKFR"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8 * 4 + 8;
+
+    private static final int MAPPING_SIZE = 16 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long maxSize;
+    private MappedByteBuffer mapping;
+    private long size;
+    private boolean closed;
+
+    public FrameRecorder(File file, long maxSize) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+        this.maxSize = maxSize;
+        ensureCapacity(FILE_HEADER_SIZE);
+        mapping.putInt(MAGIC).putInt(VERSION);
+        size = FILE_HEADER_SIZE;
+    }
+
+    /**
+     * @param rotation device rotation in degrees when the frame was taken
+     * @param left framing rect, in portrait preview pixels
+     * @return false if the frame was not recorded because the file is full or closed
+     */
+    public synchronized boolean record(byte[] data, int width, int height, int rotation,
+                                       int left, int top, int right, int bottom, long timestampNanos) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + data.length;
+        if (closed || size + recordSize > maxSize) {
+            return false;
+        }
+        ensureCapacity(recordSize);
+        mapping.putInt(data.length)
+                .putInt(width)
+                .putInt(height)
+                .putInt(rotation)
+                .putInt(left)
+                .putInt(top)
+                .putInt(right)
+                .putInt(bottom)
+                .putLong(timestampNanos)
+                .put(data);
+        size += recordSize;
+        return true;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (mapping != null && mapping.remaining() >= bytes) return;
+        if (mapping != null) {
+            mapping.force();
+        }
+        // Mapping past the end grows the file, close() trims the unused tail
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, size, Math.max(MAPPING_SIZE, bytes));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            mapping.force();
+            mapping = null;
+            channel.truncate(size);
+        } finally {
+            file.close();
+        }
+    }
+}
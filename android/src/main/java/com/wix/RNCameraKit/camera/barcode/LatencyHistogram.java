@@ -0,0 +1,84 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with power of two microsecond buckets.
+ * Bucket i counts durations below 2^i microseconds that didn't fit the previous bucket, so recording
+ * is a handful of atomic increments and percentiles are accurate to within a factor of two.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        buckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMs() {
+        long count = this.count.get();
+        return count == 0 ? 0 : toMs(totalNanos.get()) / count;
+    }
+
+    public double getMaxMs() {
+        return toMs(maxNanos.get());
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return upper bound of the bucket holding the quantile, 0 if nothing was recorded
+     */
+    public double getPercentileMs(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min((1L << i) / 1000.0, getMaxMs());
+            }
+        }
+        return getMaxMs();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Downsampled copies of a luminance source, each level half the size of the previous one.
+ * Levels are 2x2 box filtered into buffers kept between frames, and only built while they are still
+ * large enough to hold a decodable code.
+ */
+class LuminancePyramid {
+
+    private static final int MAX_LEVELS = 2;
+    private static final int MIN_LEVEL_SIZE = 160;
+
+    private final byte[][] buffers = new byte[MAX_LEVELS][];
+    private final LuminanceSource[] levels = new LuminanceSource[MAX_LEVELS];
+    private int levelCount;
+
+    /**
+     * @return number of downsampled levels built for the source
+     */
+    int build(LuminanceSource source) {
+        return build(source, MAX_LEVELS);
+    }
+
+    /**
+     * @param maxLevels build at most this many levels, up to 2
+     * @return number of downsampled levels built for the source
+     */
+    int build(LuminanceSource source, int maxLevels) {
+        byte[] data = source.getMatrix();
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        levelCount = 0;
+        while (levelCount < Math.min(maxLevels, MAX_LEVELS) && Math.min(width, height) / 2 >= MIN_LEVEL_SIZE) {
+            int levelWidth = width / 2;
+            int levelHeight = height / 2;
+            int area = levelWidth * levelHeight;
+            if (buffers[levelCount] == null || buffers[levelCount].length != area) {
+                buffers[levelCount] = new byte[area];
+            }
+            downsample(data, width, buffers[levelCount], levelWidth, levelHeight);
+            levels[levelCount] = new TransformLuminanceSource(buffers[levelCount], levelWidth, levelHeight, 0, 0, levelWidth, levelHeight);
+
+            data = buffers[levelCount];
+            width = levelWidth;
+            height = levelHeight;
+            levelCount++;
+        }
+        return levelCount;
+    }
+
+    /**
+     * @param level 0 for half resolution, 1 for quarter resolution
+     */
+    LuminanceSource getLevel(int level) {
+        return levels[level];
+    }
+
+    /**
+     * @return how many source pixels one pixel of the level covers along each axis
+     */
+    static int getScale(int level) {
+        return 2 << level;
+    }
+
+    private static void downsample(byte[] source, int sourceWidth, byte[] target, int targetWidth, int targetHeight) {
+        for (int y = 0; y < targetHeight; y++) {
+            int row = 2 * y * sourceWidth;
+            int nextRow = row + sourceWidth;
+            int outputOffset = y * targetWidth;
+            for (int x = 0, inputOffset = 0; x < targetWidth; x++, inputOffset += 2) {
+                int sum = (source[row + inputOffset] & 0xff) + (source[row + inputOffset + 1] & 0xff)
+                        + (source[nextRow + inputOffset] & 0xff) + (source[nextRow + inputOffset + 1] & 0xff);
+                target[outputOffset + x] = (byte) ((sum + 2) >> 2);
+            }
+        }
+    }
+}
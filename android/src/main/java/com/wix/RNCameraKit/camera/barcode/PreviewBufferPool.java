@@ -0,0 +1,49 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import android.hardware.Camera;
+
+/**
+ * Small ring of preallocated preview buffers handed to the camera with
+ * {@link Camera#addCallbackBuffer(byte[])}, so steady-state scanning doesn't allocate a new frame
+ * for every preview callback. Buffers must be given back with {@link #recycle(Camera, byte[])}
+ * once the decoder is done with them.
+ */
+@SuppressWarnings("deprecation")
+public class PreviewBufferPool {
+
+    private static final int BUFFER_COUNT = 3;
+
+    private byte[][] buffers = new byte[0][];
+
+    /**
+     * Allocate buffers for the camera's current preview size and start delivering frames to the callback.
+     * Buffers from a previous attach are forgotten, so frames still being decoded are never handed out twice.
+     * @param bufferSize bytes in one preview frame
+     */
+    public synchronized void attach(Camera camera, int bufferSize, Camera.PreviewCallback callback) {
+        camera.setPreviewCallbackWithBuffer(null);
+        buffers = new byte[BUFFER_COUNT][];
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            buffers[i] = new byte[bufferSize];
+            camera.addCallbackBuffer(buffers[i]);
+        }
+        camera.setPreviewCallbackWithBuffer(callback);
+    }
+
+    public synchronized void detach(Camera camera) {
+        camera.setPreviewCallbackWithBuffer(null);
+        buffers = new byte[0][];
+    }
+
+    /**
+     * Return a buffer to the camera. Buffers that belong to an older attach are dropped.
+     */
+    public synchronized void recycle(Camera camera, byte[] buffer) {
+        for (byte[] owned : buffers) {
+            if (owned == buffer) {
+                camera.addCallbackBuffer(buffer);
+                return;
+            }
+        }
+    }
+}
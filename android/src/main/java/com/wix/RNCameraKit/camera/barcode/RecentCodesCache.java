@@ -0,0 +1,79 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU of recently reported codes, used to report a code held in front of the camera only once.
+ * A code is suppressed while it keeps being seen within the suppression window of its last sighting.
+ * Also hands out the coalescing keys of reported codes, see {@link #getCoalescingKey}.
+ */
+class RecentCodesCache {
+
+    private static final int MAX_ENTRIES = 16;
+    // Distinct codes a key is reused after, far more than can be reported while an event waits for dispatch
+    private static final int MAX_KEYS = 256;
+
+    private final LinkedHashMap<String, Long> lastSeen = new LinkedHashMap<String, Long>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final Map<String, Short> keys = new HashMap<>();
+    private final String[] keyCodes = new String[MAX_KEYS];
+    private int nextKey;
+    private long suppressionWindowMs;
+
+    synchronized void setSuppressionWindow(long suppressionWindowMs) {
+        this.suppressionWindowMs = suppressionWindowMs;
+        if (suppressionWindowMs <= 0) {
+            lastSeen.clear();
+        }
+    }
+
+    /**
+     * Record a sighting of a code.
+     * @return true if the code wasn't seen within the suppression window and should be reported
+     */
+    synchronized boolean onCodeSeen(BarcodeFormat format, String text, long nowMs) {
+        if (suppressionWindowMs <= 0) {
+            return true;
+        }
+        evictExpired(nowMs);
+        return lastSeen.put(format.name() + ':' + text, nowMs) == null;
+    }
+
+    /**
+     * @return a key shared by every sighting of the code and no other code, until {@link #MAX_KEYS} other codes
+     *         were keyed since. Unlike a hash of the text, two different codes never collapse into one event.
+     */
+    synchronized short getCoalescingKey(BarcodeFormat format, String text) {
+        String code = format.name() + ':' + text;
+        Short key = keys.get(code);
+        if (key == null) {
+            if (keyCodes[nextKey] != null) {
+                keys.remove(keyCodes[nextKey]);
+            }
+            keyCodes[nextKey] = code;
+            key = (short) nextKey;
+            keys.put(code, key);
+            nextKey = (nextKey + 1) % MAX_KEYS;
+        }
+        return key;
+    }
+
+    private void evictExpired(long nowMs) {
+        Iterator<Long> iterator = lastSeen.values().iterator();
+        while (iterator.hasNext()) {
+            if (nowMs - iterator.next() > suppressionWindowMs) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.ResultPoint;
+
+/**
+ * Remembers where the last barcode was found, so following frames can be decoded from a small padded
+ * region around it before scanning the whole framing rect again. The region is dropped after a few
+ * consecutive misses. Coordinates are portrait preview pixels.
+ */
+class RegionTracker {
+
+    private static final int MAX_MISSES = 3;
+    private static final float PADDING_RATIO = 0.5f;
+    private static final int MIN_PADDING = 24;
+
+    private boolean hasRegion;
+    private boolean rotated;
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+    private int misses;
+
+    /**
+     * @param points result points of the hit, in preview pixels
+     * @param rotated whether the code was found on the rotated frame
+     */
+    void onHit(ResultPoint[] points, boolean rotated) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        if (points != null) {
+            for (ResultPoint point : points) {
+                if (point == null) continue;
+                minX = Math.min(minX, point.getX());
+                minY = Math.min(minY, point.getY());
+                maxX = Math.max(maxX, point.getX());
+                maxY = Math.max(maxY, point.getY());
+            }
+        }
+        if (minX > maxX) {
+            reset();
+            return;
+        }
+
+        // 1D codes only report points along the scan line, so pad by the larger side in both directions
+        int padding = Math.max(MIN_PADDING, (int) (Math.max(maxX - minX, maxY - minY) * PADDING_RATIO));
+        left = (int) minX - padding;
+        top = (int) minY - padding;
+        right = (int) maxX + padding;
+        bottom = (int) maxY + padding;
+        this.rotated = rotated;
+        hasRegion = true;
+        misses = 0;
+    }
+
+    void onMiss() {
+        if (++misses >= MAX_MISSES) {
+            reset();
+        }
+    }
+
+    void reset() {
+        hasRegion = false;
+        misses = 0;
+    }
+
+    boolean hasRegion() {
+        return hasRegion;
+    }
+
+    boolean isRotated() {
+        return rotated;
+    }
+
+    int getLeft() {
+        return left;
+    }
+
+    int getTop() {
+        return top;
+    }
+
+    int getRight() {
+        return right;
+    }
+
+    int getBottom() {
+        return bottom;
+    }
+}
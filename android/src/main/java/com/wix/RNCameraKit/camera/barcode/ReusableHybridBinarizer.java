@@ -0,0 +1,326 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * Produces the same output as zxing's {@link HybridBinarizer}, for matrices, and {@link GlobalHistogramBinarizer},
+ * for rows, but keeps its work arrays and output {@link BitMatrix} per thread instead of allocating them per frame.
+ * Block statistics are gathered one pixel row at a time across all blocks, so the luminances are read in memory order.
+ * A matrix returned by {@link #getBlackMatrix()} is only valid until the next binarization on the same thread.
+ * Crops created by zxing readers, as {@link com.google.zxing.multi.GenericMultipleBarcodeReader} does, get a regular
+ * {@link HybridBinarizer} so they never overwrite the matrix of the bitmap they were cropped from.
+ */
+class ReusableHybridBinarizer extends Binarizer {
+
+    private static final int BLOCK_SIZE_POWER = 3;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER;
+    private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
+    private static final int MIN_DYNAMIC_RANGE = 24;
+    private static final int LUMINANCE_SHIFT = 3;
+    private static final int LUMINANCE_BUCKETS = 1 << (8 - LUMINANCE_SHIFT);
+
+    private static final ThreadLocal<Workspace> WORKSPACES = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace();
+        }
+    };
+
+    private static class Workspace {
+        byte[] luminances;
+        byte[] rowLuminances;
+        final int[] buckets = new int[LUMINANCE_BUCKETS];
+        int[] blackPoints = new int[0];
+        int[] sums = new int[0];
+        int[] mins = new int[0];
+        int[] maxs = new int[0];
+        int[] thresholds = new int[0];
+        BitMatrix matrix;
+
+        BitMatrix getMatrix(int width, int height) {
+            if (matrix == null || matrix.getWidth() != width || matrix.getHeight() != height) {
+                matrix = new BitMatrix(width, height);
+            } else {
+                matrix.clear();
+            }
+            return matrix;
+        }
+    }
+
+    private BitMatrix matrix;
+
+    ReusableHybridBinarizer(LuminanceSource source) {
+        super(source);
+    }
+
+    /**
+     * @return bytes the calling thread's workspace holds once it binarized a matrix of this size: the copy of a
+     *         transformed source's luminances, the black point of every block and the matrix, a bit per pixel
+     */
+    static long getWorkspaceBytes(int width, int height) {
+        long blocks = (long) ((width + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER) * ((height + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER);
+        return (long) width * height + blocks * 4 + getMatrixBytes(width, height);
+    }
+
+    static long getMatrixBytes(int width, int height) {
+        return (long) ((width + 31) / 32) * 4 * height;
+    }
+
+    /**
+     * Drop the calling thread's workspace, for threads that only binarize now and then.
+     */
+    static void releaseWorkspace() {
+        WORKSPACES.remove();
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        LuminanceSource source = getLuminanceSource();
+        int width = source.getWidth();
+        if (row == null || row.getSize() < width) {
+            row = new BitArray(width);
+        } else {
+            row.clear();
+        }
+
+        Workspace workspace = WORKSPACES.get();
+        byte[] luminances = source.getRow(y, workspace.rowLuminances);
+        workspace.rowLuminances = luminances;
+        int[] buckets = workspace.buckets;
+        for (int i = 0; i < LUMINANCE_BUCKETS; i++) {
+            buckets[i] = 0;
+        }
+        for (int x = 0; x < width; x++) {
+            buckets[(luminances[x] & 0xff) >> LUMINANCE_SHIFT]++;
+        }
+        int blackPoint = estimateBlackPoint(buckets);
+
+        if (width < 3) {
+            for (int x = 0; x < width; x++) {
+                if ((luminances[x] & 0xff) < blackPoint) {
+                    row.set(x);
+                }
+            }
+        } else {
+            // A simple -1 4 -1 box filter with a weight of 2
+            int left = luminances[0] & 0xff;
+            int center = luminances[1] & 0xff;
+            for (int x = 1; x < width - 1; x++) {
+                int right = luminances[x + 1] & 0xff;
+                if (((center * 4) - left - right) / 2 < blackPoint) {
+                    row.set(x);
+                }
+                left = center;
+                center = right;
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        if (matrix != null) {
+            return matrix;
+        }
+        LuminanceSource source = getLuminanceSource();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width < MINIMUM_DIMENSION || height < MINIMUM_DIMENSION) {
+            matrix = new GlobalHistogramBinarizer(source).getBlackMatrix();
+            return matrix;
+        }
+
+        Workspace workspace = WORKSPACES.get();
+        byte[] luminances;
+        if (source instanceof TransformLuminanceSource) {
+            if (workspace.luminances == null || workspace.luminances.length < width * height) {
+                workspace.luminances = new byte[width * height];
+            }
+            // Untransformed sources hand out their own data instead of filling the buffer
+            luminances = ((TransformLuminanceSource) source).getMatrix(workspace.luminances);
+        } else {
+            luminances = source.getMatrix();
+        }
+
+        int subWidth = (width + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER;
+        int subHeight = (height + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER;
+        int[] blackPoints = calculateBlackPoints(workspace, luminances, subWidth, subHeight, width, height);
+        matrix = workspace.getMatrix(width, height);
+        calculateThresholdForBlocks(luminances, subWidth, subHeight, width, height, blackPoints, workspace.thresholds, matrix);
+        return matrix;
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new HybridBinarizer(source);
+    }
+
+    /**
+     * Black point of every block: its average luminance, or for blocks without enough contrast half its minimum,
+     * raised to the neighbours' black point when lower, as they are most likely all white.
+     */
+    private static int[] calculateBlackPoints(Workspace workspace, byte[] luminances, int subWidth, int subHeight, int width, int height) {
+        if (workspace.blackPoints.length < subWidth * subHeight) {
+            workspace.blackPoints = new int[subWidth * subHeight];
+        }
+        if (workspace.sums.length < subWidth) {
+            workspace.sums = new int[subWidth];
+            workspace.mins = new int[subWidth];
+            workspace.maxs = new int[subWidth];
+            workspace.thresholds = new int[subWidth];
+        }
+        int[] blackPoints = workspace.blackPoints;
+        int[] sums = workspace.sums;
+        int[] mins = workspace.mins;
+        int[] maxs = workspace.maxs;
+        int maxXOffset = width - BLOCK_SIZE;
+        int maxYOffset = height - BLOCK_SIZE;
+
+        for (int y = 0; y < subHeight; y++) {
+            for (int x = 0; x < subWidth; x++) {
+                sums[x] = 0;
+                mins[x] = 0xff;
+                maxs[x] = 0;
+            }
+
+            // The last block of a row or column is moved back to fit, overlapping the one before it
+            int yOffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+            for (int yy = 0; yy < BLOCK_SIZE; yy++) {
+                int rowOffset = (yOffset + yy) * width;
+                for (int x = 0; x < subWidth; x++) {
+                    int offset = rowOffset + Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+                    int sum = 0;
+                    int min = mins[x];
+                    int max = maxs[x];
+                    for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                        int pixel = luminances[offset + xx] & 0xff;
+                        sum += pixel;
+                        if (pixel < min) min = pixel;
+                        if (pixel > max) max = pixel;
+                    }
+                    sums[x] += sum;
+                    mins[x] = min;
+                    maxs[x] = max;
+                }
+            }
+
+            int blockRow = y * subWidth;
+            for (int x = 0; x < subWidth; x++) {
+                int average = sums[x] >> (BLOCK_SIZE_POWER * 2);
+                if (maxs[x] - mins[x] <= MIN_DYNAMIC_RANGE) {
+                    average = mins[x] / 2;
+                    if (y > 0 && x > 0) {
+                        int averageNeighborBlackPoint = (blackPoints[blockRow - subWidth + x]
+                                + 2 * blackPoints[blockRow + x - 1]
+                                + blackPoints[blockRow - subWidth + x - 1]) / 4;
+                        if (mins[x] < averageNeighborBlackPoint) {
+                            average = averageNeighborBlackPoint;
+                        }
+                    }
+                }
+                blackPoints[blockRow + x] = average;
+            }
+        }
+        return blackPoints;
+    }
+
+    /**
+     * Threshold every block at the average black point of the 5x5 blocks around it, one pixel row at a time.
+     */
+    private static void calculateThresholdForBlocks(byte[] luminances, int subWidth, int subHeight, int width, int height,
+                                                    int[] blackPoints, int[] thresholds, BitMatrix matrix) {
+        int maxXOffset = width - BLOCK_SIZE;
+        int maxYOffset = height - BLOCK_SIZE;
+        for (int y = 0; y < subHeight; y++) {
+            int top = cap(y, 2, subHeight - 3);
+            for (int x = 0; x < subWidth; x++) {
+                int left = cap(x, 2, subWidth - 3);
+                int sum = 0;
+                for (int z = -2; z <= 2; z++) {
+                    int blockRow = (top + z) * subWidth + left;
+                    sum += blackPoints[blockRow - 2] + blackPoints[blockRow - 1] + blackPoints[blockRow]
+                            + blackPoints[blockRow + 1] + blackPoints[blockRow + 2];
+                }
+                thresholds[x] = sum / 25;
+            }
+
+            int yOffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+            for (int yy = 0; yy < BLOCK_SIZE; yy++) {
+                int pixelY = yOffset + yy;
+                int rowOffset = pixelY * width;
+                for (int x = 0; x < subWidth; x++) {
+                    int xOffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+                    int threshold = thresholds[x];
+                    for (int xx = 0, offset = rowOffset + xOffset; xx < BLOCK_SIZE; xx++, offset++) {
+                        if ((luminances[offset] & 0xff) <= threshold) {
+                            matrix.set(xOffset + xx, pixelY);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int cap(int value, int min, int max) {
+        return value < min ? min : value > max ? max : value;
+    }
+
+    private static int estimateBlackPoint(int[] buckets) throws NotFoundException {
+        // Find the tallest peak in the histogram
+        int numBuckets = buckets.length;
+        int maxBucketCount = 0;
+        int firstPeak = 0;
+        int firstPeakSize = 0;
+        for (int x = 0; x < numBuckets; x++) {
+            if (buckets[x] > firstPeakSize) {
+                firstPeak = x;
+                firstPeakSize = buckets[x];
+            }
+            if (buckets[x] > maxBucketCount) {
+                maxBucketCount = buckets[x];
+            }
+        }
+
+        // Find the second-tallest peak, somewhat far from the tallest one
+        int secondPeak = 0;
+        int secondPeakScore = 0;
+        for (int x = 0; x < numBuckets; x++) {
+            int distanceToBiggest = x - firstPeak;
+            int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+            if (score > secondPeakScore) {
+                secondPeak = x;
+                secondPeakScore = score;
+            }
+        }
+
+        if (firstPeak > secondPeak) {
+            int temp = firstPeak;
+            firstPeak = secondPeak;
+            secondPeak = temp;
+        }
+
+        // Peaks too close together mean there is too little contrast to binarize the row
+        if (secondPeak - firstPeak <= numBuckets / 16) {
+            throw NotFoundException.getNotFoundInstance();
+        }
+
+        // Find the deepest valley between the peaks, favouring ones closer to the white peak
+        int bestValley = secondPeak - 1;
+        int bestValleyScore = -1;
+        for (int x = secondPeak - 1; x > firstPeak; x--) {
+            int fromFirst = x - firstPeak;
+            int score = fromFirst * fromFirst * (secondPeak - x) * (maxBucketCount - buckets[x]);
+            if (score > bestValleyScore) {
+                bestValley = x;
+                bestValleyScore = score;
+            }
+        }
+        return bestValley << LUMINANCE_SHIFT;
+    }
+}
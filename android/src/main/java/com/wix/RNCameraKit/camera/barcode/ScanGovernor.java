@@ -0,0 +1,134 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the scanner from measured decode cost.
+ * Keeps a rolling average of decode time and hit rate, derives the minimum interval between two decoded
+ * frames from them and decides whether the rotated attempt after a miss runs on the same frame or is
+ * moved to the next one. Backs off further while the device is hot or low on battery.
+ * Called from the decode thread only, except for the setters.
+ */
+public class ScanGovernor {
+
+    public enum PerformanceMode {
+        BATTERY("battery", 150, 4, 2, 0),
+        BALANCED("balanced", 50, 2, 1.5, 20),
+        MAX_THROUGHPUT("max-throughput", 0, 0, 1, Long.MAX_VALUE);
+
+        private final String name;
+        private final long minIntervalMs;
+        private final double dutyFactor;
+        private final double idleBackoff;
+        private final long inlineRotationBudgetMs;
+
+        PerformanceMode(String name, long minIntervalMs, double dutyFactor, double idleBackoff, long inlineRotationBudgetMs) {
+            this.name = name;
+            this.minIntervalMs = minIntervalMs;
+            this.dutyFactor = dutyFactor;
+            this.idleBackoff = idleBackoff;
+            this.inlineRotationBudgetMs = inlineRotationBudgetMs;
+        }
+
+        public static PerformanceMode fromString(String name) {
+            for (PerformanceMode mode : values()) {
+                if (mode.name.equals(name)) {
+                    return mode;
+                }
+            }
+            return BALANCED;
+        }
+
+        private PerformanceMode lower() {
+            return this == MAX_THROUGHPUT ? BALANCED : BATTERY;
+        }
+    }
+
+    private static final double AVERAGE_WEIGHT = 0.2;
+    private static final double IDLE_HIT_RATE = 0.02;
+    private static final int WARM_UP_FRAMES = 10;
+    private static final int CONSTRAINED_BATTERY_BACKOFF = 2;
+
+    private volatile PerformanceMode mode = PerformanceMode.BALANCED;
+    private volatile boolean deviceConstrained;
+
+    private double averageDecodeMs;
+    private double hitRate;
+    private int measuredFrames;
+    private long lastDecodeNanos;
+    private boolean rotatedAttemptDeferred;
+
+    public void setMode(PerformanceMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @param constrained whether the device is hot or low on battery
+     */
+    public void setDeviceConstrained(boolean constrained) {
+        deviceConstrained = constrained;
+    }
+
+    /**
+     * @return whether the frame arriving at {@code nowNanos} should be decoded or dropped
+     */
+    public boolean shouldDecodeFrame(long nowNanos) {
+        if (lastDecodeNanos != 0 && nowNanos - lastDecodeNanos < TimeUnit.MILLISECONDS.toNanos(getDecodeIntervalMs())) {
+            return false;
+        }
+        lastDecodeNanos = nowNanos;
+        return true;
+    }
+
+    /**
+     * @return true if the rotated attempt was moved to this frame, which should then decode it instead of the upright one
+     */
+    public boolean takeRotatedTurn() {
+        boolean rotatedTurn = rotatedAttemptDeferred;
+        rotatedAttemptDeferred = false;
+        return rotatedTurn;
+    }
+
+    /**
+     * Called after an upright miss. Either allows the rotated attempt right away or moves it to the next frame.
+     */
+    public boolean shouldRotateInline() {
+        PerformanceMode mode = getEffectiveMode();
+        if (averageDecodeMs <= mode.inlineRotationBudgetMs) {
+            return true;
+        }
+        rotatedAttemptDeferred = true;
+        return false;
+    }
+
+    public void onFrameDecoded(long decodeNanos, boolean hit) {
+        double decodeMs = decodeNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        if (measuredFrames == 0) {
+            averageDecodeMs = decodeMs;
+            hitRate = hit ? 1 : 0;
+        } else {
+            averageDecodeMs += AVERAGE_WEIGHT * (decodeMs - averageDecodeMs);
+            hitRate += AVERAGE_WEIGHT * ((hit ? 1 : 0) - hitRate);
+        }
+        measuredFrames++;
+        if (hit) {
+            rotatedAttemptDeferred = false;
+        }
+    }
+
+    long getDecodeIntervalMs() {
+        PerformanceMode mode = getEffectiveMode();
+        double interval = Math.max(mode.minIntervalMs, averageDecodeMs * mode.dutyFactor);
+        if (measuredFrames >= WARM_UP_FRAMES && hitRate < IDLE_HIT_RATE) {
+            interval *= mode.idleBackoff;
+        }
+        if (deviceConstrained && this.mode == PerformanceMode.BATTERY) {
+            interval *= CONSTRAINED_BATTERY_BACKOFF;
+        }
+        return (long) interval;
+    }
+
+    private PerformanceMode getEffectiveMode() {
+        return deviceConstrained ? mode.lower() : mode;
+    }
+}
@@ -0,0 +1,74 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitArray;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes one-dimensional codes from a handful of rows through the middle of the source, without binarizing the rest of it.
+ * Every row is thresholded on its own, as zxing's 1D readers do, and read left to right and then right to left.
+ * Codes have to be held roughly level so the rows cross all of their bars. Not thread safe.
+ */
+class ScanlineDecoder {
+
+    // Row offsets from the centre, in eighths of the source height, so the rows cover its middle half
+    private static final int[] ROW_OFFSETS = {0, -1, 1, -2, 2};
+
+    private BitArray row;
+
+    /**
+     * @return the first code found, with result points in source pixels
+     */
+    @Nullable
+    Result decode(FormatReader reader, LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (row == null || row.getSize() != width) {
+            row = new BitArray(width);
+        }
+
+        Binarizer binarizer = new ReusableHybridBinarizer(source);
+        for (int offset : ROW_OFFSETS) {
+            int y = height / 2 + offset * height / 8;
+            try {
+                binarizer.getBlackRow(y, row);
+            } catch (NotFoundException e) {
+                // Too little contrast on this row
+                continue;
+            }
+
+            Result result = reader.decodeRow(y, row);
+            if (result != null) {
+                return result;
+            }
+            row.reverse();
+            result = reader.decodeRow(y, row);
+            if (result != null) {
+                return toUnreversed(result, width);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Map result points of a reversed row back to the source, the way zxing's 1D readers report upside down codes.
+     */
+    private static Result toUnreversed(Result result, int width) {
+        result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+        ResultPoint[] points = result.getResultPoints();
+        if (points != null) {
+            for (int i = 0; i < points.length; i++) {
+                if (points[i] != null) {
+                    points[i] = new ResultPoint(width - points[i].getX() - 1, points[i].getY());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and per stage latencies of the scan pipeline, cheap enough to record on every frame.
+ * Written from the camera, decode and main threads without locking, so a snapshot taken while
+ * scanning may be off by the frame in flight.
+ */
+public class ScannerStats {
+
+    public enum Stage {
+        /** From the camera callback until the decode thread picks the frame up */
+        QUEUE_WAIT("queueWait"),
+        /** Rotating the framing rect of the sensor frame into portrait */
+        ROTATION("rotation"),
+        /** Building the luminance source and its downsampled levels */
+        LUMINANCE("luminance"),
+        /** Binarizing and decoding, every attempt made on the frame */
+        DECODE("decode"),
+        /** From posting a new code to the main thread until its event is dispatched */
+        DISPATCH("dispatch");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final AtomicLong framesSeen = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong framesBlurry = new AtomicLong();
+    private final AtomicLong framesUnchanged = new AtomicLong();
+    private final AtomicLong framesDecoded = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public ScannerStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * A preview frame arrived from the camera.
+     */
+    public void onFrameSeen() {
+        framesSeen.incrementAndGet();
+    }
+
+    /**
+     * A frame was replaced by a newer one before the decode thread got to it.
+     */
+    public void onFrameDropped() {
+        framesDropped.incrementAndGet();
+    }
+
+    /**
+     * A frame reached the scanner but was skipped to keep the decode rate down.
+     */
+    public void onFrameSkipped() {
+        framesSkipped.incrementAndGet();
+    }
+
+    /**
+     * A frame was skipped by the {@link FrameGate}.
+     */
+    public void onFrameGated(FrameGate.Verdict verdict) {
+        if (verdict == FrameGate.Verdict.BLURRY) {
+            framesBlurry.incrementAndGet();
+        } else if (verdict == FrameGate.Verdict.UNCHANGED) {
+            framesUnchanged.incrementAndGet();
+        }
+    }
+
+    public void onFrameDecoded(boolean hit) {
+        framesDecoded.incrementAndGet();
+        if (hit) {
+            hits.incrementAndGet();
+        }
+    }
+
+    public long getFramesSeen() {
+        return framesSeen.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    public long getFramesBlurry() {
+        return framesBlurry.get();
+    }
+
+    public long getFramesUnchanged() {
+        return framesUnchanged.get();
+    }
+
+    /**
+     * @return share of the frames evaluated by the {@link FrameGate} that it skipped
+     */
+    public double getGateSkipRatio() {
+        long gated = framesBlurry.get() + framesUnchanged.get();
+        long evaluated = gated + framesDecoded.get();
+        return evaluated == 0 ? 0 : gated / (double) evaluated;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        framesSeen.set(0);
+        framesDropped.set(0);
+        framesSkipped.set(0);
+        framesBlurry.set(0);
+        framesUnchanged.set(0);
+        framesDecoded.set(0);
+        hits.set(0);
+    }
+}
@@ -0,0 +1,60 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes barcodes from upright still images, such as gallery photos, given as one luminance byte per pixel.
+ * Looks harder than the preview scanner, there is no next frame to catch a miss, and retries the image rotated by
+ * 90 degrees for formats that need it. Still images are large and decoded now and then, the binarizer workspace of
+ * the decoding thread is released after every image instead of kept. Not thread safe, every decoding thread needs
+ * its own instance.
+ */
+public class StillImageDecoder {
+
+    private final FormatReader reader;
+
+    /**
+     * @param formats formats to decode, {@code null} or an empty list enables all of them
+     */
+    public StillImageDecoder(@Nullable Collection<BarcodeFormat> formats) {
+        reader = new FormatReader(formats == null || formats.isEmpty() ? FrameDecoder.ALL_FORMATS : formats, true);
+    }
+
+    /**
+     * @return bytes decoding an image of this size allocates on top of its luminances, until the decode returns
+     */
+    public long getDecodeBytes(int width, int height) {
+        long bytes = ReusableHybridBinarizer.getWorkspaceBytes(width, height);
+        // The rotated retry reuses the luminance copy but needs a matrix of its own size
+        return reader.isRotationNeeded() ? bytes + ReusableHybridBinarizer.getMatrixBytes(height, width) : bytes;
+    }
+
+    /**
+     * @param luminances row major luminance of every pixel, {@code width * height} bytes
+     * @param scale original image pixels per luminance pixel, for images decoded at a lower resolution
+     * @param multiple decode every barcode in the image instead of stopping at the first one
+     * @return decoded barcodes with result points in original image pixels, or null when nothing was found
+     */
+    @Nullable
+    public Result[] decode(byte[] luminances, int width, int height, int scale, boolean multiple) {
+        LuminanceSource source = new TransformLuminanceSource(luminances, width, height, 0, 0, width, height);
+        try {
+            Result[] results = reader.decode(source, multiple);
+            if (results != null) {
+                return FrameDecoder.toPreviewCoordinates(results, 0, 0, scale, 0);
+            }
+            if (!reader.isRotationNeeded()) {
+                return null;
+            }
+            return FrameDecoder.toPreviewCoordinates(reader.decode(source.rotateCounterClockwise(), multiple), 0, 0, scale, width);
+        } finally {
+            ReusableHybridBinarizer.releaseWorkspace();
+        }
+    }
+}
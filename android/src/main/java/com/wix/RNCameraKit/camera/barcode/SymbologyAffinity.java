@@ -0,0 +1,115 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BarcodeFormat;
+
+/**
+ * Orders the symbologies of a {@link FormatReader} by how often they were found recently, so the reader of the
+ * dominant one runs first. Hit counts decay with every hit, old hits fade once the scene changes.
+ * Symbologies holding a negligible share of the hits are only tried on every {@link #RARE_INTERVAL}th pass over the
+ * whole framing rect, and on the pass right after the region of the last hit was lost. Attempts on that region never
+ * try them nor use up their turn, so a new rare code is found within {@link #RARE_INTERVAL} frames. Not thread safe, owned by the decoding thread of its reader.
+ */
+class SymbologyAffinity {
+
+    /**
+     * Formats sharing a zxing reader. The 1D formats are read together from the same rows, so they are ranked together.
+     * Declared in the order {@link com.google.zxing.MultiFormatReader} tries them, which is kept until there are hits.
+     */
+    enum Symbology {
+        ONE_D,
+        QR_CODE,
+        DATA_MATRIX,
+        AZTEC,
+        PDF_417,
+        MAXICODE;
+
+        static Symbology of(BarcodeFormat format) {
+            switch (format) {
+                case QR_CODE:
+                    return QR_CODE;
+                case DATA_MATRIX:
+                    return DATA_MATRIX;
+                case AZTEC:
+                    return AZTEC;
+                case PDF_417:
+                    return PDF_417;
+                case MAXICODE:
+                    return MAXICODE;
+                default:
+                    return ONE_D;
+            }
+        }
+    }
+
+    static final int RARE_INTERVAL = 4;
+
+    private static final double DECAY = 0.9;
+    // Below this share of the decayed hits a symbology is rare, once there are enough hits to tell
+    private static final double RARE_SHARE = 0.05;
+    private static final double MIN_TOTAL_SCORE = 3;
+
+    private final double[] scores = new double[Symbology.values().length];
+    private final boolean[] rare = new boolean[scores.length];
+    private final Symbology[] order = Symbology.values();
+    private int passes;
+    private boolean rareTurn;
+
+    /**
+     * Called before decoding the region of the last hit, which holds the code seen most recently.
+     */
+    void onRegionAttempt() {
+        rareTurn = false;
+    }
+
+    /**
+     * Called before a pass over the whole framing rect.
+     * @param regionLost the region of the last hit was just lost, the scene likely changed
+     */
+    void onFullPass(boolean regionLost) {
+        passes++;
+        rareTurn = regionLost || passes % RARE_INTERVAL == 0;
+    }
+
+    void onHit(BarcodeFormat format) {
+        double total = 0;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] *= DECAY;
+            total += scores[i];
+        }
+        scores[Symbology.of(format).ordinal()] += 1;
+        total += 1;
+        for (int i = 0; i < scores.length; i++) {
+            rare[i] = total >= MIN_TOTAL_SCORE && scores[i] < RARE_SHARE * total;
+        }
+
+        // Insertion sort, stable so ties keep the default order
+        for (int i = 1; i < order.length; i++) {
+            Symbology symbology = order[i];
+            int j = i - 1;
+            while (j >= 0 && compare(order[j], symbology) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = symbology;
+        }
+    }
+
+    private int compare(Symbology first, Symbology second) {
+        double difference = scores[second.ordinal()] - scores[first.ordinal()];
+        return difference != 0 ? (difference > 0 ? 1 : -1) : first.ordinal() - second.ordinal();
+    }
+
+    /**
+     * @return all symbologies, most frequently hit first. Must not be modified.
+     */
+    Symbology[] getOrder() {
+        return order;
+    }
+
+    /**
+     * @return whether the symbology should be tried by the current attempt
+     */
+    boolean isTried(Symbology symbology) {
+        return !rare[symbology.ordinal()] || rareTurn;
+    }
+}
@@ -0,0 +1,180 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes a large luminance source as overlapping tiles in parallel, so binarizing a full frame is spread over all cores.
+ * Four corner tiles and a centre tile cover 60% of each side, every code up to a fifth of the source, and every centred
+ * code up to 60% of it, lies entirely inside one of them. A half resolution copy of the whole source catches the rest.
+ * The first hit stops the other tiles before their next attempt. zxing can't be interrupted, so tiles already decoding
+ * are waited for before returning, they read from the caller's buffers.
+ */
+class TiledDecoder {
+
+    // Sources with a shorter side than this decode faster in one piece
+    private static final int MIN_TILED_SIZE = 480;
+
+    private static final float TILE_RATIO = 0.6f;
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService EXECUTOR = createExecutor();
+    private static final ThreadLocal<ReaderCopy> READERS = new ThreadLocal<ReaderCopy>() {
+        @Override
+        protected ReaderCopy initialValue() {
+            return new ReaderCopy();
+        }
+    };
+
+    static class Hit {
+        final Result[] results;
+        final boolean rotated;
+
+        Hit(Result[] results, boolean rotated) {
+            this.results = results;
+            this.rotated = rotated;
+        }
+    }
+
+    // FormatReader isn't thread safe, every pool thread keeps its own copy of the caller's reader
+    private static class ReaderCopy {
+        FormatReader template;
+        FormatReader reader;
+    }
+
+    private final LuminancePyramid pyramid = new LuminancePyramid();
+
+    /**
+     * Tiles decode more pixels in total than a single pass, they only pay off with several cores.
+     */
+    static boolean isWorthwhile(LuminanceSource source) {
+        return PROCESSORS > 1 && Math.min(source.getWidth(), source.getHeight()) >= MIN_TILED_SIZE;
+    }
+
+    private static ExecutorService createExecutor() {
+        int threads = Math.max(1, PROCESSORS);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CameraKitTile-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param left preview x of the source's top left pixel
+     * @param top preview y of the source's top left pixel
+     * @return the first code found, with result points in preview pixels
+     */
+    @Nullable
+    Hit decode(FormatReader reader, LuminanceSource source, int left, int top) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int tileWidth = (int) (width * TILE_RATIO);
+        int tileHeight = (int) (height * TILE_RATIO);
+        AtomicBoolean found = new AtomicBoolean();
+
+        List<Callable<Hit>> tiles = new ArrayList<>();
+        for (int tileTop : new int[] {0, height - tileHeight}) {
+            for (int tileLeft : new int[] {0, width - tileWidth}) {
+                LuminanceSource tile = source.crop(tileLeft, tileTop, tileWidth, tileHeight);
+                tiles.add(createTile(reader, tile, left + tileLeft, top + tileTop, 1, found));
+            }
+        }
+        int centreLeft = (width - tileWidth) / 2;
+        int centreTop = (height - tileHeight) / 2;
+        LuminanceSource centre = source.crop(centreLeft, centreTop, tileWidth, tileHeight);
+        tiles.add(0, createTile(reader, centre, left + centreLeft, top + centreTop, 1, found));
+        if (pyramid.build(source, 1) > 0) {
+            tiles.add(createTile(reader, pyramid.getLevel(0), left, top, LuminancePyramid.getScale(0), found));
+        }
+
+        CompletionService<Hit> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        for (Callable<Hit> tile : tiles) {
+            completionService.submit(tile);
+        }
+
+        Hit hit = null;
+        try {
+            for (int i = 0; i < tiles.size(); i++) {
+                Hit tileHit = completionService.take().get();
+                if (hit == null) {
+                    hit = tileHit;
+                }
+            }
+        } catch (InterruptedException e) {
+            found.set(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            found.set(true);
+            throw new IllegalStateException(e.getCause());
+        }
+        return hit;
+    }
+
+    private static Callable<Hit> createTile(final FormatReader template, final LuminanceSource tile,
+                                            final int left, final int top, final int scale, final AtomicBoolean found) {
+        return new Callable<Hit>() {
+            @Override
+            public Hit call() {
+                if (found.get()) return null;
+                FormatReader reader = getReader(template);
+                Result result = decode(reader, tile);
+                if (result != null) {
+                    found.set(true);
+                    return new Hit(FrameDecoder.toPreviewCoordinates(new Result[] {result}, left, top, scale, 0), false);
+                }
+
+                if (found.get() || !reader.isRotationNeeded() || !tile.isRotateSupported()) return null;
+                result = decode(reader, tile.rotateCounterClockwise());
+                if (result != null) {
+                    found.set(true);
+                    return new Hit(FrameDecoder.toPreviewCoordinates(new Result[] {result}, left, top, scale, tile.getWidth()), true);
+                }
+                return null;
+            }
+        };
+    }
+
+    private static FormatReader getReader(FormatReader template) {
+        ReaderCopy copy = READERS.get();
+        if (copy.template != template) {
+            copy.template = template;
+            copy.reader = new FormatReader(template.getFormats());
+        }
+        return copy.reader;
+    }
+
+    @Nullable
+    private static Result decode(FormatReader reader, LuminanceSource source) {
+        try {
+            return reader.decode(new BinaryBitmap(new ReusableHybridBinarizer(source)));
+        } catch (ReaderException ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.wix.RNCameraKit.camera.barcode;
+
+import com.google.zxing.LuminanceSource;
+
+import javax.annotation.Nullable;
+
+/**
+ * Luminance source that views a plane of Y data through an index transform instead of copying it.
+ * Pixel (x, y) of the source is {@code data[origin + x * stepX + y * stepY]}, so cropping, flipping and
+ * 90 degree rotations only produce a new view. Pixels are copied when {@link #getRow(int, byte[])} or
+ * {@link #getMatrix()} is called, and only the requested area is read.
+ */
+public class TransformLuminanceSource extends LuminanceSource {
+
+    private final byte[] data;
+    private final int origin;
+    private final int stepX;
+    private final int stepY;
+
+    public TransformLuminanceSource(byte[] data,
+                                    int dataWidth,
+                                    int dataHeight,
+                                    int left,
+                                    int top,
+                                    int width,
+                                    int height) {
+        this(data, width, height, top * dataWidth + left, 1, dataWidth);
+
+        if (left < 0 || top < 0 || left + width > dataWidth || top + height > dataHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+    }
+
+    private TransformLuminanceSource(byte[] data, int width, int height, int origin, int stepX, int stepY) {
+        super(width, height);
+        this.data = data;
+        this.origin = origin;
+        this.stepX = stepX;
+        this.stepY = stepY;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        int offset = origin + y * stepY;
+        if (stepX == 1) {
+            System.arraycopy(data, offset, row, 0, width);
+        } else {
+            for (int x = 0; x < width; x++, offset += stepX) {
+                row[x] = data[offset];
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        return getMatrix(null);
+    }
+
+    /**
+     * Same as {@link #getMatrix()}, copying into {@code matrix} when it is large enough.
+     */
+    byte[] getMatrix(@Nullable byte[] matrix) {
+        int width = getWidth();
+        int height = getHeight();
+
+        // An untransformed view of the start of the data is already laid out as the matrix.
+        // The docs specifically warn that result.length must be ignored.
+        if (origin == 0 && stepX == 1 && stepY == width) {
+            return data;
+        }
+
+        if (matrix == null || matrix.length < width * height) {
+            matrix = new byte[width * height];
+        }
+        if (stepX == 1) {
+            for (int y = 0, inputOffset = origin; y < height; y++, inputOffset += stepY) {
+                System.arraycopy(data, inputOffset, matrix, y * width, width);
+            }
+        } else if (stepY == 1 || stepY == -1) {
+            // Columns of a rotated view are contiguous in the data, so walk them in memory order.
+            for (int x = 0, inputOffset = origin; x < width; x++, inputOffset += stepX) {
+                for (int y = 0, offset = inputOffset, outputOffset = x; y < height; y++, offset += stepY, outputOffset += width) {
+                    matrix[outputOffset] = data[offset];
+                }
+            }
+        } else {
+            for (int y = 0, outputOffset = 0; y < height; y++) {
+                for (int x = 0, offset = origin + y * stepY; x < width; x++, offset += stepX) {
+                    matrix[outputOffset++] = data[offset];
+                }
+            }
+        }
+        return matrix;
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        if (left < 0 || top < 0 || left + width > getWidth() || top + height > getHeight()) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+        return new TransformLuminanceSource(data, width, height, origin + left * stepX + top * stepY, stepX, stepY);
+    }
+
+    @Override
+    public boolean isRotateSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource rotateCounterClockwise() {
+        return new TransformLuminanceSource(data, getHeight(), getWidth(), origin + (getWidth() - 1) * stepX, stepY, -stepX);
+    }
+
+    public TransformLuminanceSource rotateClockwise() {
+        return new TransformLuminanceSource(data, getHeight(), getWidth(), origin + (getHeight() - 1) * stepY, -stepY, stepX);
+    }
+
+    public TransformLuminanceSource flipHorizontal() {
+        return new TransformLuminanceSource(data, getWidth(), getHeight(), origin + (getWidth() - 1) * stepX, -stepX, stepY);
+    }
+}
@@ -28,12 +28,12 @@ public class Capture implements Command {
     }
 
     private void tryTakePicture(final Promise promise) throws Exception {
-        CameraViewManager.getCamera().takePicture(null, null, new Camera.PictureCallback() {
+        CameraViewManager.takePicture(new Camera.PictureCallback() {
             @Override
             public void onPictureTaken(byte[] data, Camera camera) {
                 camera.stopPreview();
                 new SaveImageTask(context, promise, saveToCameraRoll).execute(data);
             }
-        });
+        }, promise);
     }
 }
@@ -0,0 +1,238 @@
+package com.wix.RNCameraKit.gallery;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+import com.wix.RNCameraKit.Utils;
+import com.wix.RNCameraKit.camera.barcode.StillImageDecoder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Scans gallery images for barcodes, in parallel on every core. Each image is decoded at a sampled resolution and
+ * reduced to luminance before scanning. Images in flight of every scan share one memory budget, a quarter of the heap,
+ * so a large image waits for others to finish instead of running the app out of memory. Results are reported per
+ * image, in completion order.
+ */
+class GalleryBarcodeScanner {
+
+    interface Listener {
+        /**
+         * Called once per image, on a scanning thread.
+         * @param results decoded barcodes, in original image pixels, or null when there were none or the image failed
+         * @param error why the image couldn't be scanned, or null
+         */
+        void onImageScanned(int index, String uri, int completed, @Nullable Result[] results, @Nullable String error);
+
+        /**
+         * Called after the last image was reported, on a scanning thread.
+         */
+        void onFinished(int total, int withCodes, int failed);
+    }
+
+    static final int DEFAULT_MAX_DIMENSION = 1600;
+
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final Executor EXECUTOR = createExecutor();
+    // Budget of every scan in KB, the permits of an image are capped to it so a single oversized image still gets scanned alone
+    private static final int BUDGET_KB = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 4096));
+    private static final Semaphore MEMORY = new Semaphore(BUDGET_KB, true);
+
+    private final Context context;
+    private final List<String> uris;
+    private final int maxDimension;
+    private final boolean multiple;
+    private final Listener listener;
+    // Budget of this scan in KB, within the shared one
+    private final int scanBudgetKb;
+    private final Semaphore scanMemory;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger withCodes = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final ThreadLocal<StillImageDecoder> decoders;
+
+    /**
+     * @param formats formats to decode, empty enables all of them
+     * @param maxDimension images are sampled down by powers of two, keeping their longer side at least this long
+     * @param memoryBudget bytes images in flight of this scan may take, within the budget shared by every scan
+     */
+    GalleryBarcodeScanner(Context context, List<String> uris, final List<BarcodeFormat> formats, int maxDimension,
+                          boolean multiple, long memoryBudget, Listener listener) {
+        this.context = context;
+        this.uris = uris;
+        this.maxDimension = maxDimension;
+        this.multiple = multiple;
+        this.listener = listener;
+        scanBudgetKb = (int) Math.max(1, Math.min(BUDGET_KB, memoryBudget / 1024));
+        scanMemory = new Semaphore(scanBudgetKb, true);
+        decoders = new ThreadLocal<StillImageDecoder>() {
+            @Override
+            protected StillImageDecoder initialValue() {
+                return new StillImageDecoder(formats);
+            }
+        };
+    }
+
+    void start() {
+        if (uris.isEmpty()) {
+            listener.onFinished(0, 0, 0);
+            return;
+        }
+        for (int i = 0; i < uris.size(); i++) {
+            final int index = i;
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    scan(index);
+                }
+            });
+        }
+    }
+
+    private void scan(int index) {
+        String uri = uris.get(index);
+        Result[] results = null;
+        String error = null;
+        try {
+            results = scanImage(uri);
+        } catch (IOException | RuntimeException e) {
+            error = e.toString();
+        }
+        if (error != null) {
+            failed.incrementAndGet();
+        } else if (results != null) {
+            withCodes.incrementAndGet();
+        }
+
+        int done;
+        // Report under the lock so completion counts reach the listener in order
+        synchronized (this) {
+            done = completed.incrementAndGet();
+            listener.onImageScanned(index, uri, done, results, error);
+        }
+        if (done == uris.size()) {
+            listener.onFinished(done, withCodes.get(), failed.get());
+        }
+    }
+
+    @Nullable
+    private Result[] scanImage(String uri) throws IOException {
+        String path = uri.startsWith(Utils.FILE_PREFIX) ? uri.substring(Utils.FILE_PREFIX.length()) : uri;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        Utils.loadBitmap(context, path, options);
+        int width = options.outWidth;
+        int height = options.outHeight;
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Can't read image " + uri);
+        }
+
+        // Sample against the longer side only, asking for maxDimension on both would keep landscape photos whole
+        int longer = Math.max(width, height);
+        options.inSampleSize = Utils.calculateInSampleSize(width, height,
+                (int) ((long) maxDimension * width / longer), (int) ((long) maxDimension * height / longer));
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        int scale = options.inSampleSize;
+        int sampledWidth = (width + scale - 1) / scale;
+        int sampledHeight = (height + scale - 1) / scale;
+        StillImageDecoder decoder = decoders.get();
+        // The bitmap, its luminances (a byte per pixel) and what decoding them allocates
+        long bytes = (long) sampledWidth * sampledHeight * (getBytesPerPixel(options) + 1)
+                + decoder.getDecodeBytes(sampledWidth, sampledHeight);
+        int permits = (int) Math.min(scanBudgetKb, (bytes + 1023) / 1024);
+
+        // Always this scan's budget first, then the shared one, so no two scans wait on each other's
+        scanMemory.acquireUninterruptibly(permits);
+        MEMORY.acquireUninterruptibly(permits);
+        try {
+            Bitmap bitmap = Utils.loadBitmap(context, path, options);
+            if (bitmap == null) {
+                throw new IOException("Can't decode image " + uri);
+            }
+            int bitmapWidth = bitmap.getWidth();
+            int bitmapHeight = bitmap.getHeight();
+            byte[] luminances;
+            try {
+                luminances = toLuminances(bitmap);
+            } finally {
+                bitmap.recycle();
+            }
+            return decoder.decode(luminances, bitmapWidth, bitmapHeight, scale, multiple);
+        } finally {
+            MEMORY.release(permits);
+            scanMemory.release(permits);
+        }
+    }
+
+    /**
+     * Of the bitmap decoded with these options. Only JPEG always honors the preferred config, other decoders keep
+     * ARGB_8888 for images with alpha.
+     */
+    private static int getBytesPerPixel(BitmapFactory.Options options) {
+        if (!"image/jpeg".equals(options.outMimeType)) {
+            return 4;
+        }
+        switch (options.inPreferredConfig) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Same weighting as zxing's RGBLuminanceSource, read a row at a time to avoid a full copy of the pixels.
+     */
+    private static byte[] toLuminances(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        byte[] luminances = new byte[width * height];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = row[x];
+                int r = (pixel >> 16) & 0xff;
+                int g = (pixel >> 8) & 0xff;
+                int b = pixel & 0xff;
+                luminances[offset + x] = (byte) ((r + 2 * g + b) >> 2);
+            }
+        }
+        return luminances;
+    }
+
+    private static Executor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CameraKitGalleryScan-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
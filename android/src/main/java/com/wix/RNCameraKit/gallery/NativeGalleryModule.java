@@ -20,8 +20,11 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.google.zxing.Result;
 import com.wix.RNCameraKit.SaveImageTask;
 import com.wix.RNCameraKit.Utils;
+import com.wix.RNCameraKit.camera.ReadCodesEvent;
 import com.wix.RNCameraKit.gallery.permission.StoragePermission;
 
 import java.io.ByteArrayOutputStream;
@@ -34,6 +37,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 
+import javax.annotation.Nullable;
+
 import static com.wix.RNCameraKit.Utils.getStringSafe;
 
 /**
@@ -72,6 +77,7 @@ public class NativeGalleryModule extends ReactContextBaseJavaModule {
             MediaStore.Images.Media.DATA
     };
     public static final String ALL_PHOTOS = "All Photos";
+    public static final String SCAN_IMAGES_PROGRESS_EVENT = "CameraKitScanImagesProgress";
     private Promise checkPermissionStatusPromise;
 
     private class Album {
@@ -306,6 +312,57 @@ public class NativeGalleryModule extends ReactContextBaseJavaModule {
         promise.resolve(ret);
     }
 
+    /**
+     * Scan images for barcodes in the background. Each image is reported as a {@link #SCAN_IMAGES_PROGRESS_EVENT}
+     * as soon as it's scanned, the promise resolves with the totals once all of them are.
+     * @param options formats, maxDimension, multiple and memoryBudgetMb, all optional
+     * @param scanId passed back with every event, to tell concurrent scans apart
+     */
+    @ReactMethod
+    public void scanImages(ReadableArray uris, @Nullable ReadableMap options, final int scanId, final Promise promise) {
+        ReadableArray formats = options != null && options.hasKey("formats") ? options.getArray("formats") : null;
+        int maxDimension = options != null && options.hasKey("maxDimension")
+                ? options.getInt("maxDimension") : GalleryBarcodeScanner.DEFAULT_MAX_DIMENSION;
+        boolean multiple = options != null && options.hasKey("multiple") && options.getBoolean("multiple");
+        long memoryBudget = options != null && options.hasKey("memoryBudgetMb")
+                ? (long) (options.getDouble("memoryBudgetMb") * 1024 * 1024) : Long.MAX_VALUE;
+
+        final ReactApplicationContext context = getReactApplicationContext();
+        new GalleryBarcodeScanner(context, Utils.readableArrayToList(uris), Utils.readableArrayToBarcodeFormats(formats),
+                maxDimension, multiple, memoryBudget, new GalleryBarcodeScanner.Listener() {
+            @Override
+            public void onImageScanned(int index, String uri, int completed, @Nullable Result[] results,
+                                       @Nullable String error) {
+                WritableArray codes = Arguments.createArray();
+                if (results != null) {
+                    for (Result result : results) {
+                        codes.pushMap(ReadCodesEvent.resultToMap(result));
+                    }
+                }
+                WritableMap event = Arguments.createMap();
+                event.putInt("scanId", scanId);
+                event.putInt("index", index);
+                event.putString("uri", uri);
+                event.putInt("completed", completed);
+                event.putArray("codes", codes);
+                if (error != null) {
+                    event.putString("error", error);
+                }
+                context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(SCAN_IMAGES_PROGRESS_EVENT, event);
+            }
+
+            @Override
+            public void onFinished(int total, int withCodes, int failed) {
+                WritableMap summary = Arguments.createMap();
+                summary.putInt("total", total);
+                summary.putInt("withCodes", withCodes);
+                summary.putInt("failed", failed);
+                promise.resolve(summary);
+            }
+        }).start();
+    }
+
     @ReactMethod
     public void saveImageURLToCameraRoll(String imageUrl, final Promise promise) {
         new SaveImageTask(imageUrl, getReactApplicationContext(), promise, true).execute();
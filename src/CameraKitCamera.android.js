@@ -52,6 +52,18 @@ export default class CameraKitCamera extends React.Component {
     return await NativeCameraModule.setFlashMode(flashMode);
   }
 
+  static async prepareCamera(options = {}) {
+    return await NativeCameraModule.prepareCamera(options);
+  }
+
+  static async getScannerStats() {
+    return await NativeCameraModule.getScannerStats();
+  }
+
+  static async resetScannerStats() {
+    return await NativeCameraModule.resetScannerStats();
+  }
+
   static async checkDeviceCameraAuthorizationStatus() {
     return await NativeCameraModule.checkDeviceCameraAuthorizationStatus();
   }
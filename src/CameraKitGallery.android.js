@@ -1,5 +1,7 @@
-import {NativeModules} from 'react-native';
+import {NativeModules, DeviceEventEmitter} from 'react-native';
 const NativeGalleryModule = NativeModules.NativeGalleryModule;
+const SCAN_IMAGES_PROGRESS_EVENT = 'CameraKitScanImagesProgress';
+let nextScanId = 1;
 
 async function getAlbumsWithThumbnails() {
   return await NativeGalleryModule.getAlbumsWithThumbnails();
@@ -50,6 +52,19 @@ async function resizeImage(image = {}, quality = 'original') {
   return await NativeGalleryModule.resizeImage(image, quality);
 }
 
+async function scanImages(imagesUris = [], options = {}, onProgress) {
+  const scanId = nextScanId++;
+  const subscription = onProgress && DeviceEventEmitter.addListener(SCAN_IMAGES_PROGRESS_EVENT, (event) => {
+    if (event.scanId === scanId) {
+      onProgress(event);
+    }
+  });
+  try {
+    return await NativeGalleryModule.scanImages(imagesUris, options, scanId);
+  } finally {
+    subscription && subscription.remove();
+  }
+}
 
 export default {
   checkDevicePhotosAuthorizationStatus,
@@ -59,5 +74,6 @@ export default {
   getImagesForIds,
   getImageForTapEvent,
   getImagesForCameraEvent,
-  resizeImage
+  resizeImage,
+  scanImages
 }
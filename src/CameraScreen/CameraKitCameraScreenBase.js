@@ -167,6 +167,19 @@ export default class CameraScreenBase extends Component {
               frameColor={this.props.frameColor}
               surfaceColor={this.props.surfaceColor}
               onReadCode = {this.props.onReadCode}
+              onReadCodes = {this.props.onReadCodes}
+              cameraProfile = {this.props.cameraProfile}
+              barcodeFormats = {this.props.barcodeFormats}
+              scanPerformanceMode = {this.props.scanPerformanceMode}
+              scanSuppressionWindow = {this.props.scanSuppressionWindow}
+              scanMultipleBarcodes = {this.props.scanMultipleBarcodes}
+              scanPyramid = {this.props.scanPyramid}
+              scanTiled = {this.props.scanTiled}
+              scanLinear = {this.props.scanLinear}
+              scanFrameGate = {this.props.scanFrameGate}
+              scannerStatsInterval = {this.props.scannerStatsInterval}
+              onScannerStats = {this.props.onScannerStats}
+              scanRecordPath = {this.props.scanRecordPath}
               scannerOptions = {this.state.scannerOptions}
             />
         }